@@ -0,0 +1,135 @@
+/*
+ * @test
+ * @summary Test that -AresultCache replays the diagnostics of an unchanged class, and that editing
+ * package-info.java invalidates the cached diagnostics of the classes in the package.
+ *
+ * @compile Main.java
+ * @run main Main
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.NullnessChecker;
+
+public class Main {
+
+    /** The class that is checked. Its return statement is an error unless returns are nullable. */
+    static final String TEST =
+            "package resultcache;\n"
+                    + "public class Test {\n"
+                    + "    Object get() {\n"
+                    + "        return null;\n"
+                    + "    }\n"
+                    + "}\n";
+
+    /** A package-info.java without annotations. */
+    static final String PLAIN_PACKAGE = "package resultcache;\n";
+
+    /** A package-info.java that makes every type in the package nullable by default. */
+    static final String NULLABLE_PACKAGE =
+            "@org.checkerframework.framework.qual.DefaultQualifier("
+                    + "org.checkerframework.checker.nullness.qual.Nullable.class)\n"
+                    + "package resultcache;\n";
+
+    public static void main(String[] args) throws IOException {
+        Path work = Paths.get(System.getProperty("user.dir"), "resultcache-work");
+        Path src = work.resolve("resultcache");
+        Path cache = work.resolve("cache");
+        Files.createDirectories(src);
+        Files.write(src.resolve("Test.java"), TEST.getBytes(StandardCharsets.UTF_8));
+
+        writePackageInfo(src, PLAIN_PACKAGE);
+        check(src, cache, 1, 1, "first compilation");
+        check(src, cache, 1, 1, "unchanged compilation");
+
+        writePackageInfo(src, NULLABLE_PACKAGE);
+        check(src, cache, 0, 2, "compilation after adding @DefaultQualifier");
+
+        writePackageInfo(src, PLAIN_PACKAGE);
+        check(src, cache, 1, 2, "compilation after removing @DefaultQualifier");
+    }
+
+    /**
+     * Writes package-info.java.
+     *
+     * @param src the package directory
+     * @param contents the contents of package-info.java
+     */
+    static void writePackageInfo(Path src, String contents) throws IOException {
+        Files.write(src.resolve("package-info.java"), contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Runs the Nullness Checker with -AresultCache on the package, and checks the number of errors
+     * and the number of entries in the cache afterward.
+     *
+     * @param src the package directory
+     * @param cache the cache directory
+     * @param expectedErrors the expected number of errors
+     * @param expectedEntries the expected number of cache entries
+     * @param description a description of the compilation, for failure messages
+     */
+    static void check(
+            Path src, Path cache, int expectedErrors, int expectedEntries, String description)
+            throws IOException {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager fileManager = javac.getStandardFileManager(null, null, null);
+        JavaCompiler.CompilationTask task =
+                javac.getTask(
+                        null,
+                        fileManager,
+                        diagnostics,
+                        Arrays.asList(
+                                "-classpath",
+                                System.getProperty("java.class.path"),
+                                "-proc:only",
+                                "-AresultCache=" + cache),
+                        null,
+                        fileManager.getJavaFileObjects(
+                                src.resolve("package-info.java").toFile(),
+                                src.resolve("Test.java").toFile()));
+        task.setProcessors(Arrays.asList(new NullnessChecker()));
+        task.call();
+        fileManager.close();
+
+        int errors = 0;
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.ERROR) {
+                errors++;
+            }
+        }
+        if (errors != expectedErrors) {
+            throw new Error(
+                    description
+                            + ": expected "
+                            + expectedErrors
+                            + " errors, found "
+                            + diagnostics.getDiagnostics());
+        }
+
+        long entries;
+        try (Stream<Path> files = Files.list(cache)) {
+            entries = files.filter(f -> !f.toString().endsWith(".tmp")).count();
+        }
+        if (entries != expectedEntries) {
+            throw new Error(
+                    description
+                            + ": expected "
+                            + expectedEntries
+                            + " cache entries, found "
+                            + entries);
+        }
+    }
+}
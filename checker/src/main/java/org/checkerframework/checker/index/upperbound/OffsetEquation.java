@@ -472,8 +472,30 @@ public class OffsetEquation {
         return equation;
     }
 
+    /**
+     * Returns true if {@code string} is empty or is an optionally-signed sequence of decimal
+     * digits. This is called for every term of every offset that is parsed, so it does not use a
+     * regular expression.
+     *
+     * @param string a term of an offset equation
+     * @return true if {@code string} is empty or an integer literal
+     */
     private static boolean isInt(String string) {
-        return string.isEmpty() || string.matches("[-+]?[0-9]+");
+        int length = string.length();
+        if (length == 0) {
+            return true;
+        }
+        int start = string.charAt(0) == '-' || string.charAt(0) == '+' ? 1 : 0;
+        if (start == length) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            char c = string.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
     }
 
     private static int parseInt(String intLiteral) {
@@ -14,6 +14,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
@@ -46,6 +47,7 @@ import org.checkerframework.checker.index.substringindex.SubstringIndexAnnotated
 import org.checkerframework.checker.index.substringindex.SubstringIndexChecker;
 import org.checkerframework.checker.index.upperbound.UBQualifier.LessThanLengthOf;
 import org.checkerframework.checker.index.upperbound.UBQualifier.UpperBoundUnknownQualifier;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseAnnotatedTypeFactory;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.common.value.ValueAnnotatedTypeFactory;
@@ -113,6 +115,20 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
 
     private final IndexMethodIdentifier imf;
 
+    /**
+     * Map from an annotation in the Upper Bound hierarchy to the qualifier that it represents. See
+     * {@link #getUBQualifier}. Null if the factory does not cache.
+     */
+    private final @Nullable Map<AnnotationMirror, UBQualifier> ubQualifierCache =
+            shouldCache ? createCache(getCacheSize()) : null;
+
+    /**
+     * Map from a qualifier to the annotation that represents it. See {@link
+     * #convertUBQualifierToAnnotation}. Null if the factory does not cache.
+     */
+    private final @Nullable Map<UBQualifier, AnnotationMirror> ubAnnotationCache =
+            shouldCache ? createCache(getCacheSize()) : null;
+
     /** Create a new UpperBoundAnnotatedTypeFactory. */
     public UpperBoundAnnotatedTypeFactory(BaseTypeChecker checker) {
         super(checker);
@@ -359,8 +375,8 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
 
         @Override
         public AnnotationMirror greatestLowerBound(AnnotationMirror a1, AnnotationMirror a2) {
-            UBQualifier a1Obj = UBQualifier.createUBQualifier(a1);
-            UBQualifier a2Obj = UBQualifier.createUBQualifier(a2);
+            UBQualifier a1Obj = getUBQualifier(a1);
+            UBQualifier a2Obj = getUBQualifier(a2);
             UBQualifier glb = a1Obj.glb(a2Obj);
             return convertUBQualifierToAnnotation(glb);
         }
@@ -374,8 +390,8 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
          */
         @Override
         public AnnotationMirror leastUpperBound(AnnotationMirror a1, AnnotationMirror a2) {
-            UBQualifier a1Obj = UBQualifier.createUBQualifier(a1);
-            UBQualifier a2Obj = UBQualifier.createUBQualifier(a2);
+            UBQualifier a1Obj = getUBQualifier(a1);
+            UBQualifier a2Obj = getUBQualifier(a2);
             UBQualifier lub = a1Obj.lub(a2Obj);
             return convertUBQualifierToAnnotation(lub);
         }
@@ -383,8 +399,8 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         @Override
         public AnnotationMirror widenedUpperBound(
                 AnnotationMirror newQualifier, AnnotationMirror previousQualifier) {
-            UBQualifier a1Obj = UBQualifier.createUBQualifier(newQualifier);
-            UBQualifier a2Obj = UBQualifier.createUBQualifier(previousQualifier);
+            UBQualifier a1Obj = getUBQualifier(newQualifier);
+            UBQualifier a2Obj = getUBQualifier(previousQualifier);
             UBQualifier lub = a1Obj.widenUpperBound(a2Obj);
             return convertUBQualifierToAnnotation(lub);
         }
@@ -403,8 +419,8 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
          */
         @Override
         public boolean isSubtype(AnnotationMirror subAnno, AnnotationMirror superAnno) {
-            UBQualifier subtype = UBQualifier.createUBQualifier(subAnno);
-            UBQualifier supertype = UBQualifier.createUBQualifier(superAnno);
+            UBQualifier subtype = getUBQualifier(subAnno);
+            UBQualifier supertype = getUBQualifier(superAnno);
             return subtype.isSubtype(supertype);
         }
     }
@@ -447,7 +463,7 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             if (isRandomNextInt(tree)) {
                 AnnotatedTypeMirror argType = getAnnotatedType(tree.getArguments().get(0));
                 AnnotationMirror anno = argType.getAnnotationInHierarchy(UNKNOWN);
-                UBQualifier qualifier = UBQualifier.createUBQualifier(anno);
+                UBQualifier qualifier = getUBQualifier(anno);
                 qualifier = qualifier.plusOffset(1);
                 type.replaceAnnotation(convertUBQualifierToAnnotation(qualifier));
             }
@@ -569,7 +585,7 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
                     // Support average by shift just like for division
                     UBQualifier plusDivQualifier = plusTreeDivideByVal(divisor, left);
                     if (!plusDivQualifier.isUnknown()) {
-                        UBQualifier qualifier = UBQualifier.createUBQualifier(annotation);
+                        UBQualifier qualifier = getUBQualifier(annotation);
                         qualifier = qualifier.glb(plusDivQualifier);
                         annotation = convertUBQualifierToAnnotation(qualifier);
                     }
@@ -766,8 +782,39 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return POLY;
         }
 
-        LessThanLengthOf ltlQualifier = (LessThanLengthOf) qualifier;
-        return ltlQualifier.convertToAnnotation(processingEnv);
+        if (ubAnnotationCache == null || ubQualifierCache == null) {
+            return ((LessThanLengthOf) qualifier).convertToAnnotation(processingEnv);
+        }
+        AnnotationMirror result = ubAnnotationCache.get(qualifier);
+        if (result == null) {
+            LessThanLengthOf ltlQualifier = (LessThanLengthOf) qualifier;
+            result = ltlQualifier.convertToAnnotation(processingEnv);
+            ubAnnotationCache.put(qualifier, result);
+            ubQualifierCache.put(result, qualifier);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the qualifier that {@code am} represents. This is the same as {@link
+     * UBQualifier#createUBQualifier(AnnotationMirror)}, but the sequences and offsets of each
+     * annotation are parsed only once if the factory caches. Annotations returned by {@link
+     * #convertUBQualifierToAnnotation} are mapped back to the qualifier that they were created
+     * from.
+     *
+     * @param am an annotation in the Upper Bound hierarchy
+     * @return the qualifier that {@code am} represents
+     */
+    public UBQualifier getUBQualifier(AnnotationMirror am) {
+        if (ubQualifierCache == null) {
+            return UBQualifier.createUBQualifier(am);
+        }
+        UBQualifier result = ubQualifierCache.get(am);
+        if (result == null) {
+            result = UBQualifier.createUBQualifier(am);
+            ubQualifierCache.put(am, result);
+        }
+        return result;
     }
 
     UBQualifier fromLessThan(ExpressionTree tree, TreePath treePath) {
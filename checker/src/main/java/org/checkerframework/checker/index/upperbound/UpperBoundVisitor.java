@@ -211,7 +211,7 @@ public class UpperBoundVisitor extends BaseTypeVisitor<UpperBoundAnnotatedTypeFa
 
             boolean ltelCheckFailed = true;
             if (anm != null) {
-                UBQualifier qual = UBQualifier.createUBQualifier(anm);
+                UBQualifier qual = atypeFactory.getUBQualifier(anm);
                 ltelCheckFailed = !qual.isLessThanOrEqualTo(subSeq.array);
             }
 
@@ -0,0 +1,33 @@
+package tests;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * JUnit tests for the Index Checker with the -AdiscardFlowResults command-line argument. The Index
+ * Checker queries the type factories of its subcheckers, so this tests that their dataflow results
+ * are kept until the Index Checker itself is done with each method.
+ */
+public class IndexDiscardFlowResultsTest extends CheckerFrameworkPerDirectoryTest {
+
+    /**
+     * Create an IndexDiscardFlowResultsTest.
+     *
+     * @param testFiles the files containing test code, which will be type-checked
+     */
+    public IndexDiscardFlowResultsTest(List<File> testFiles) {
+        super(
+                testFiles,
+                org.checkerframework.checker.index.IndexChecker.class,
+                "index",
+                "-Anomsgtext",
+                "-AdiscardFlowResults");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"index"};
+    }
+}
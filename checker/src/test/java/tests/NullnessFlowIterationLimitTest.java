@@ -0,0 +1,30 @@
+package tests;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.checker.nullness.NullnessChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/** JUnit tests for the Nullness Checker with the {@code -AflowIterationLimit} option. */
+public class NullnessFlowIterationLimitTest extends CheckerFrameworkPerDirectoryTest {
+
+    /**
+     * Create a NullnessFlowIterationLimitTest.
+     *
+     * @param testFiles the files containing test code, which will be type-checked
+     */
+    public NullnessFlowIterationLimitTest(List<File> testFiles) {
+        super(
+                testFiles,
+                NullnessChecker.class,
+                "nullness",
+                "-Anomsgtext",
+                "-AflowIterationLimit=0");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"nullness-flowiterationlimit"};
+    }
+}
@@ -0,0 +1,43 @@
+import org.checkerframework.checker.nullness.qual.EnsuresNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// This test is run with -AflowIterationLimit=0, so the dataflow analysis of every method,
+// constructor, and initializer stops before it reaches a fixed point. Nothing is known at the end
+// of such code, so fields and postconditions are checked conservatively.
+public class FlowIterationLimit {
+
+    String f;
+
+    @Nullable String g;
+
+    // :: warning: (flow.iteration.limit)
+    {
+        f = "initialized";
+    }
+
+    // The initializer block is not known to initialize f.
+    // :: warning: (flow.iteration.limit)
+    // :: error: (initialization.fields.uninitialized)
+    FlowIterationLimit() {}
+
+    // :: warning: (flow.iteration.limit)
+    // :: error: (initialization.fields.uninitialized)
+    FlowIterationLimit(String f) {
+        this.f = f;
+    }
+
+    @EnsuresNonNull("g")
+    // :: warning: (flow.iteration.limit)
+    // :: error: (contracts.postcondition.not.satisfied)
+    void setG() {
+        g = "g";
+    }
+
+    // :: warning: (flow.iteration.limit)
+    void refine(@Nullable String s) {
+        if (s != null) {
+            // :: error: (dereference.of.nullable)
+            s.length();
+        }
+    }
+}
@@ -3,13 +3,13 @@ package org.checkerframework.dataflow.analysis;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
-import java.util.Comparator;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.StringJoiner;
 import javax.lang.model.element.Element;
 import org.checkerframework.checker.interning.qual.FindDistinct;
 import org.checkerframework.checker.interning.qual.InternedDistinct;
@@ -417,47 +417,34 @@ public abstract class AbstractAnalysis<
      * @param b the block to add to {@link #worklist}
      */
     protected void addToWorklist(Block b) {
-        // TODO: use a more efficient way to check if b is already present
-        if (!worklist.contains(b)) {
-            worklist.add(b);
-        }
+        worklist.add(b);
     }
 
     /**
      * A worklist is a priority queue of blocks in which the order is given by depth-first ordering
      * to place non-loop predecessors ahead of successors.
+     *
+     * <p>Each block of the control flow graph is numbered by its position in the depth-first order
+     * when {@link #process} is called. The worklist itself is a bit set indexed by those numbers,
+     * so adding a block, testing membership, and polling the next block in order take constant or
+     * near-constant time, and no priority-queue comparisons are needed.
      */
     protected static class Worklist {
 
         /** Map all blocks in the CFG to their depth-first order. */
         protected final IdentityHashMap<Block, Integer> depthFirstOrder;
 
-        /**
-         * Comparators to allow priority queue to order blocks by their depth-first order, using by
-         * forward analysis.
-         */
-        public class ForwardDFOComparator implements Comparator<Block> {
-            @SuppressWarnings("nullness:unboxing.of.nullable")
-            @Override
-            public int compare(Block b1, Block b2) {
-                return depthFirstOrder.get(b1) - depthFirstOrder.get(b2);
-            }
-        }
+        /** The direction of the analysis that uses this worklist. */
+        protected final Direction direction;
 
         /**
-         * Comparators to allow priority queue to order blocks by their depth-first order, using by
-         * backward analysis.
+         * The inverse of {@link #depthFirstOrder}: the block whose depth-first order is {@code i}
+         * is at index {@code i}. Indexes that are not the order of any block hold null.
          */
-        public class BackwardDFOComparator implements Comparator<Block> {
-            @SuppressWarnings("nullness:unboxing.of.nullable")
-            @Override
-            public int compare(Block b1, Block b2) {
-                return depthFirstOrder.get(b2) - depthFirstOrder.get(b1);
-            }
-        }
+        protected Block[] blocksByOrder;
 
-        /** The backing priority queue. */
-        protected final PriorityQueue<Block> queue;
+        /** The depth-first orders of the blocks that are currently in the worklist. */
+        protected final BitSet queued;
 
         /**
          * Create a Worklist.
@@ -465,15 +452,13 @@ public abstract class AbstractAnalysis<
          * @param direction the direction (forward or backward)
          */
         public Worklist(Direction direction) {
-            depthFirstOrder = new IdentityHashMap<>();
-
-            if (direction == Direction.FORWARD) {
-                queue = new PriorityQueue<>(11, new ForwardDFOComparator());
-            } else if (direction == Direction.BACKWARD) {
-                queue = new PriorityQueue<>(11, new BackwardDFOComparator());
-            } else {
+            if (direction != Direction.FORWARD && direction != Direction.BACKWARD) {
                 throw new BugInCF("Unexpected Direction meet: " + direction.name());
             }
+            this.direction = direction;
+            this.depthFirstOrder = new IdentityHashMap<>();
+            this.blocksByOrder = new Block[0];
+            this.queued = new BitSet();
         }
 
         /**
@@ -485,56 +470,79 @@ public abstract class AbstractAnalysis<
             depthFirstOrder.clear();
             int count = 1;
             for (Block b : cfg.getDepthFirstOrderedBlocks()) {
+                // A block may appear more than once; its last position wins.
                 depthFirstOrder.put(b, count++);
             }
+            blocksByOrder = new Block[count];
+            for (Map.Entry<Block, Integer> entry : depthFirstOrder.entrySet()) {
+                blocksByOrder[entry.getValue()] = entry.getKey();
+            }
 
-            queue.clear();
+            queued.clear();
         }
 
         /**
-         * See {@link PriorityQueue#isEmpty}.
+         * Returns true if the worklist contains no blocks.
          *
-         * @see PriorityQueue#isEmpty
-         * @return true if {@link #queue} is empty else false
+         * @return true if the worklist is empty else false
          */
         @EnsuresNonNullIf(result = false, expression = "poll()")
         @SuppressWarnings("nullness:contracts.conditional.postcondition.not.satisfied") // forwarded
         public boolean isEmpty() {
-            return queue.isEmpty();
+            return queued.isEmpty();
         }
 
         /**
-         * Check if {@link #queue} contains the block which is passed as the argument.
+         * Check if the worklist contains the block which is passed as the argument.
          *
          * @param block the given block to check
-         * @return true if {@link #queue} contains the given block
+         * @return true if the worklist contains the given block
          */
         public boolean contains(Block block) {
-            return queue.contains(block);
+            Integer order = depthFirstOrder.get(block);
+            return order != null && queued.get(order);
         }
 
         /**
-         * Add the given block to {@link #queue}.
+         * Add the given block to the worklist. If it is already present, the method does nothing.
          *
-         * @param block the block to add to {@link #queue}
+         * @param block the block to add to the worklist
          */
         public void add(Block block) {
-            queue.add(block);
+            Integer order = depthFirstOrder.get(block);
+            if (order == null) {
+                throw new BugInCF("Block is not reachable in the control flow graph: " + block);
+            }
+            queued.set(order);
         }
 
         /**
-         * See {@link PriorityQueue#poll}.
+         * Removes and returns the block that comes first in depth-first order (for a forward
+         * analysis) or last (for a backward analysis).
          *
-         * @see PriorityQueue#poll
-         * @return the head of {@link #queue}
+         * @return the next block to analyze, or null if the worklist is empty
          */
         public @Nullable Block poll() {
-            return queue.poll();
+            int order =
+                    direction == Direction.FORWARD
+                            ? queued.nextSetBit(0)
+                            : queued.previousSetBit(blocksByOrder.length - 1);
+            if (order < 0) {
+                return null;
+            }
+            queued.clear(order);
+            return blocksByOrder[order];
         }
 
         @Override
         public String toString() {
-            return "Worklist(" + queue + ")";
+            StringJoiner result = new StringJoiner(", ", "Worklist([", "])");
+            for (int order = queued.nextSetBit(0);
+                    order >= 0;
+                    order = queued.nextSetBit(order + 1)) {
+                result.add(String.valueOf(blocksByOrder[order]));
+            }
+            return result.toString();
         }
     }
 }
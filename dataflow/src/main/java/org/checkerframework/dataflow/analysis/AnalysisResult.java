@@ -9,6 +9,7 @@ import java.util.Set;
 import java.util.StringJoiner;
 import javax.lang.model.element.Element;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
 import org.checkerframework.dataflow.cfg.block.Block;
 import org.checkerframework.dataflow.cfg.block.ExceptionBlock;
 import org.checkerframework.dataflow.cfg.node.AssignmentNode;
@@ -133,6 +134,31 @@ public class AnalysisResult<V extends AbstractValue<V>, S extends Store<S>> {
         finalLocalValues.putAll(other.finalLocalValues);
     }
 
+    /**
+     * Removes the results for the blocks, nodes, and trees of the given control-flow graph, whose
+     * analysis result was {@link #combine combined} with this one. The values of effectively final
+     * local variables are kept, because code outside {@code cfg} may refer to them.
+     *
+     * @param cfg a control-flow graph whose results to remove
+     */
+    public void remove(ControlFlowGraph cfg) {
+        for (Block block : cfg.getAllBlocks()) {
+            stores.remove(block);
+            for (Node node : block.getNodes()) {
+                nodeValues.remove(node);
+            }
+        }
+        for (Map.Entry<Tree, Set<Node>> entry : cfg.getTreeLookup().entrySet()) {
+            treeLookup.remove(entry.getKey());
+            for (Node node : entry.getValue()) {
+                nodeValues.remove(node);
+            }
+        }
+        for (UnaryTree tree : cfg.getUnaryAssignNodeLookup().keySet()) {
+            unaryAssignNodeLookup.remove(tree);
+        }
+    }
+
     /**
      * Merge all entries from otherTreeLookup into treeLookup. Merge sets if already present.
      *
@@ -54,6 +54,18 @@ public class ForwardAnalysisImpl<
      */
     protected final int maxCountBeforeWidening;
 
+    /**
+     * The maximum number of times that {@link #performAnalysis(ControlFlowGraph)} analyzes a basic
+     * block before it gives up, or -1 if there is no limit.
+     */
+    protected int iterationLimit = -1;
+
+    /**
+     * True if the last call to {@link #performAnalysis(ControlFlowGraph)} stopped because it
+     * reached {@link #iterationLimit}, in which case its results are not a fixed point.
+     */
+    protected boolean iterationLimitReached = false;
+
     /** Then stores before every basic block (assumed to be 'no information' if not present). */
     protected final IdentityHashMap<Block, S> thenStores;
 
@@ -101,7 +113,13 @@ public class ForwardAnalysisImpl<
 
         try {
             init(cfg);
+            iterationLimitReached = false;
+            int iterations = 0;
             while (!worklist.isEmpty()) {
+                if (iterationLimit != -1 && iterations++ >= iterationLimit) {
+                    iterationLimitReached = true;
+                    break;
+                }
                 Block b = worklist.poll();
                 performAnalysisBlock(b);
             }
@@ -112,6 +130,28 @@ public class ForwardAnalysisImpl<
         }
     }
 
+    /**
+     * Sets the maximum number of times that {@link #performAnalysis(ControlFlowGraph)} analyzes a
+     * basic block. If the analysis has not reached a fixed point by then, it stops and {@link
+     * #isIterationLimitReached} returns true.
+     *
+     * @param iterationLimit the maximum number of basic blocks to analyze, or -1 for no limit
+     */
+    public void setIterationLimit(int iterationLimit) {
+        this.iterationLimit = iterationLimit;
+    }
+
+    /**
+     * Returns true if the last call to {@link #performAnalysis(ControlFlowGraph)} stopped because
+     * it reached the limit set by {@link #setIterationLimit}. The results of that analysis are not
+     * a fixed point and must not be used.
+     *
+     * @return true if the last analysis stopped before reaching a fixed point
+     */
+    public boolean isIterationLimitReached() {
+        return iterationLimitReached;
+    }
+
     @Override
     public void performAnalysisBlock(Block b) {
         switch (b.getType()) {
@@ -1044,6 +1044,8 @@ public class CFGBuilder {
                             rs.getRegularSuccessor().removePredecessor(rs);
                         }
                     }
+                    // The contents of b are final: only the block being visited absorbs nodes.
+                    b.trimToSize();
                 }
             }
             return cfg;
@@ -2698,16 +2700,25 @@ public class CFGBuilder {
 
             /* Check for the TerminatesExecution annotation. */
             Element methodElement = TreeUtils.elementFromTree(tree);
-            boolean terminatesExecution =
-                    annotationProvider.getDeclAnnotation(methodElement, TerminatesExecution.class)
-                            != null;
-            if (terminatesExecution) {
+            if (terminatesExecution(methodElement)) {
                 extendedNode.setTerminatesExecution(true);
             }
 
             return node;
         }
 
+        /**
+         * Returns true if the given method never returns normally, as indicated by a {@link
+         * TerminatesExecution} annotation provided by {@link #annotationProvider}.
+         *
+         * @param methodElement an invoked method
+         * @return true if {@code methodElement} terminates execution
+         */
+        protected boolean terminatesExecution(Element methodElement) {
+            return annotationProvider.getDeclAnnotation(methodElement, TerminatesExecution.class)
+                    != null;
+        }
+
         @Override
         public Node visitAssert(AssertTree tree, Void p) {
 
@@ -1,8 +1,8 @@
 package org.checkerframework.dataflow.cfg.block;
 
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import org.checkerframework.dataflow.util.IdentityMostlySingleton;
 
 /** Base class of the {@link Block} implementation hierarchy. */
 public abstract class BlockImpl implements Block {
@@ -30,7 +30,8 @@ public abstract class BlockImpl implements Block {
 
     protected BlockImpl(BlockType type) {
         this.type = type;
-        this.predecessors = new HashSet<>();
+        // Most blocks have a single predecessor.
+        this.predecessors = new IdentityMostlySingleton<>();
     }
 
     @Override
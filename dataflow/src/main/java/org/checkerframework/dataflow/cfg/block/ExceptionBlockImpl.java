@@ -23,7 +23,8 @@ public class ExceptionBlockImpl extends SingleSuccessorBlockImpl implements Exce
     /** Create an empty exceptional block. */
     public ExceptionBlockImpl() {
         super(BlockType.EXCEPTION_BLOCK);
-        exceptionalSuccessors = new LinkedHashMap<>();
+        // Few exception types are distinguished at a single node; keep the map small.
+        exceptionalSuccessors = new LinkedHashMap<>(4);
     }
 
     /** Set the node. */
@@ -64,7 +65,7 @@ public class ExceptionBlockImpl extends SingleSuccessorBlockImpl implements Exce
     public void addExceptionalSuccessor(BlockImpl b, TypeMirror cause) {
         Set<Block> blocks = exceptionalSuccessors.get(cause);
         if (blocks == null) {
-            blocks = new LinkedHashSet<>();
+            blocks = new LinkedHashSet<>(2);
             exceptionalSuccessors.put(cause, blocks);
         }
         blocks.add(b);
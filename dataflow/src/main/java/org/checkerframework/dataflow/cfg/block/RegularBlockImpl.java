@@ -34,6 +34,16 @@ public class RegularBlockImpl extends SingleSuccessorBlockImpl implements Regula
         }
     }
 
+    /**
+     * Releases the unused capacity of the list of contents. Called once the contents of this block
+     * are final.
+     */
+    public void trimToSize() {
+        if (contents instanceof ArrayList) {
+            ((ArrayList<Node>) contents).trimToSize();
+        }
+    }
+
     @SuppressWarnings("deprecation") // implementation of deprecated method in interface
     @Override
     public List<Node> getContents() {
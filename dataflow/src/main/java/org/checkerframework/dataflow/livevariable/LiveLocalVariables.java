@@ -0,0 +1,126 @@
+package org.checkerframework.dataflow.livevariable;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Queue;
+import java.util.Set;
+import javax.lang.model.element.Element;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.node.LocalVariableNode;
+import org.checkerframework.dataflow.cfg.node.Node;
+import org.checkerframework.javacutil.TreeUtils;
+
+/**
+ * The local variables that are live at the entry of each basic block of a control-flow graph.
+ *
+ * <p>Unlike {@link LiveVarTransfer}, which is an example of a backward analysis, this class is
+ * meant to be used by other analyses and over-approximates the live variables: a local variable is
+ * live at the entry of a block if some path from the block reaches any occurrence of the variable,
+ * including an assignment to it. A variable that is captured by a lambda expression or by a local
+ * or anonymous class is live wherever the lambda or class is reachable.
+ *
+ * <p>A forward analysis may therefore forget the value of a local variable that is not live at the
+ * entry of a block, since no later node reads it.
+ */
+public class LiveLocalVariables {
+
+    /** Map from each block to the local variables that are live at its entry. */
+    private final IdentityHashMap<Block, Set<Element>> liveBefore = new IdentityHashMap<>();
+
+    /**
+     * Adds the elements of all identifiers in a tree to a set. Fields and other non-local elements
+     * are added, too; they are harmless, since only local variables are looked up.
+     */
+    private static final TreeScanner<Void, Set<Element>> CAPTURE_SCANNER =
+            new TreeScanner<Void, Set<Element>>() {
+                @Override
+                public Void visitIdentifier(IdentifierTree tree, Set<Element> used) {
+                    Element element = TreeUtils.elementFromUse(tree);
+                    if (element != null) {
+                        used.add(element);
+                    }
+                    return null;
+                }
+            };
+
+    /**
+     * Computes the live local variables of the given control-flow graph.
+     *
+     * @param cfg a control-flow graph
+     */
+    public LiveLocalVariables(ControlFlowGraph cfg) {
+        Set<Block> blocks = cfg.getAllBlocks();
+        for (Block block : blocks) {
+            liveBefore.put(block, usedVariables(block));
+        }
+
+        // Propagate backward until nothing changes. Variables are never killed, so a block's
+        // live set only grows.
+        Queue<Block> worklist = new ArrayDeque<>(blocks);
+        Set<Block> queued = Collections.newSetFromMap(new IdentityHashMap<>());
+        queued.addAll(blocks);
+        while (!worklist.isEmpty()) {
+            Block block = worklist.remove();
+            queued.remove(block);
+            Set<Element> live = liveBefore.get(block);
+            boolean changed = false;
+            for (Block succ : block.getSuccessors()) {
+                Set<Element> succLive = liveBefore.get(succ);
+                if (succLive != null) {
+                    changed |= live.addAll(succLive);
+                }
+            }
+            if (changed) {
+                for (Block pred : block.getPredecessors()) {
+                    if (liveBefore.containsKey(pred) && queued.add(pred)) {
+                        worklist.add(pred);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the local variables that are live at the entry of the given block.
+     *
+     * @param block a block of the control-flow graph
+     * @return the local variables that are live at the entry of {@code block}
+     */
+    public Set<Element> getLiveVariablesBefore(Block block) {
+        Set<Element> live = liveBefore.get(block);
+        return live == null ? Collections.emptySet() : live;
+    }
+
+    /**
+     * Returns the local variables that occur in the given block, or in the bodies of the lambda
+     * expressions and classes that it declares.
+     *
+     * @param block a block
+     * @return the local variables used in {@code block}
+     */
+    private static Set<Element> usedVariables(Block block) {
+        Set<Element> used = new HashSet<>();
+        for (Node node : block.getNodes()) {
+            if (node instanceof LocalVariableNode) {
+                used.add(((LocalVariableNode) node).getElement());
+            }
+            Tree tree = node.getTree();
+            if (tree instanceof LambdaExpressionTree
+                    || tree instanceof ClassTree
+                    || (tree instanceof NewClassTree
+                            && ((NewClassTree) tree).getClassBody() != null)) {
+                CAPTURE_SCANNER.scan(tree, used);
+            }
+        }
+        return used;
+    }
+}
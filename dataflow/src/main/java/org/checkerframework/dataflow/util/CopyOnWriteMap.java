@@ -0,0 +1,276 @@
+package org.checkerframework.dataflow.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A {@link HashMap}-backed map whose copies share storage until one of them is modified.
+ *
+ * <p>Copying a {@code CopyOnWriteMap} with {@link #copyOf} takes constant time: the copy refers to
+ * the same backing {@link HashMap} as the original. The first modification of either map,
+ * including modification through {@link #entrySet()}, {@link #keySet()}, {@link #values()}, their
+ * iterators, or their entries, gives that map a private copy of the backing map. Dataflow stores
+ * are copied at every block boundary but usually change only a few entries before they are copied
+ * again, so most copies are never materialized.
+ *
+ * <p>This class is not thread-safe.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public final class CopyOnWriteMap<K, V> extends AbstractMap<K, V> {
+
+    /** A backing map, together with the number of CopyOnWriteMaps that refer to it. */
+    private static final class Storage<K, V> {
+        /** The backing map. Must not be modified while {@link #owners} is greater than 1. */
+        final HashMap<K, V> map;
+
+        /** An upper bound on the number of CopyOnWriteMaps that refer to {@link #map}. */
+        int owners = 1;
+
+        /**
+         * Creates a new Storage with one owner.
+         *
+         * @param map the backing map
+         */
+        Storage(HashMap<K, V> map) {
+            this.map = map;
+        }
+    }
+
+    /** The storage of this map, possibly shared with other CopyOnWriteMaps. */
+    private Storage<K, V> storage;
+
+    /** Creates an empty map. */
+    public CopyOnWriteMap() {
+        this.storage = new Storage<>(new HashMap<>());
+    }
+
+    /**
+     * Creates a map that shares storage with {@code other}.
+     *
+     * @param other the map to copy
+     */
+    private CopyOnWriteMap(CopyOnWriteMap<K, V> other) {
+        this.storage = other.storage;
+        this.storage.owners++;
+    }
+
+    /**
+     * Returns a copy of {@code map}. If {@code map} is a CopyOnWriteMap, the copy shares storage
+     * with it and this method takes constant time.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @param map the map to copy
+     * @return a modifiable copy of {@code map}
+     */
+    public static <K, V> CopyOnWriteMap<K, V> copyOf(Map<K, V> map) {
+        if (map instanceof CopyOnWriteMap) {
+            return new CopyOnWriteMap<>((CopyOnWriteMap<K, V>) map);
+        }
+        CopyOnWriteMap<K, V> result = new CopyOnWriteMap<>();
+        result.storage.map.putAll(map);
+        return result;
+    }
+
+    /**
+     * Returns true if this map and {@code other} currently share their storage, in which case they
+     * have the same entries.
+     *
+     * @param other another map
+     * @return true if this map and {@code other} are known to have the same entries
+     */
+    public boolean sharesStorageWith(Map<?, ?> other) {
+        return other instanceof CopyOnWriteMap && ((CopyOnWriteMap<?, ?>) other).storage == storage;
+    }
+
+    /**
+     * Returns the backing map, after giving this map a private copy of it if it is shared.
+     *
+     * @return the backing map, which may be modified
+     */
+    private HashMap<K, V> mutableMap() {
+        if (storage.owners > 1) {
+            storage.owners--;
+            storage = new Storage<>(new HashMap<>(storage.map));
+        }
+        return storage.map;
+    }
+
+    @Override
+    public int size() {
+        return storage.map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return storage.map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(@Nullable Object key) {
+        return storage.map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(@Nullable Object value) {
+        return storage.map.containsValue(value);
+    }
+
+    @Override
+    public @Nullable V get(@Nullable Object key) {
+        return storage.map.get(key);
+    }
+
+    @Override
+    public @Nullable V put(K key, V value) {
+        return mutableMap().put(key, value);
+    }
+
+    @Override
+    public @Nullable V remove(@Nullable Object key) {
+        if (!storage.map.containsKey(key)) {
+            return null;
+        }
+        return mutableMap().remove(key);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        if (!m.isEmpty()) {
+            mutableMap().putAll(m);
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (storage.owners > 1) {
+            storage.owners--;
+            storage = new Storage<>(new HashMap<>());
+        } else {
+            storage.map.clear();
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (o instanceof CopyOnWriteMap && ((CopyOnWriteMap<?, ?>) o).storage == storage) {
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return storage.map.hashCode();
+    }
+
+    /** The entry set view of a CopyOnWriteMap. */
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public int size() {
+            return storage.map.size();
+        }
+
+        @Override
+        public void clear() {
+            CopyOnWriteMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+    }
+
+    /**
+     * An iterator over the entries of a CopyOnWriteMap. It iterates over the backing map that was
+     * current when the iterator was created. If the CopyOnWriteMap obtains a private copy of its
+     * storage during the iteration, the iterated map is left unchanged and modifications are made
+     * to the copy.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        /** The backing map being iterated over. */
+        private final HashMap<K, V> iteratedMap = storage.map;
+
+        /** The iterator over {@link #iteratedMap}. */
+        private final Iterator<Map.Entry<K, V>> delegate = iteratedMap.entrySet().iterator();
+
+        /** The entry most recently returned by {@link #next}, or null. */
+        private Map.@Nullable Entry<K, V> last = null;
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!delegate.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<K, V> entry = delegate.next();
+            last = entry;
+            return new Entry(entry, iteratedMap);
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            if (storage.map == iteratedMap && storage.owners == 1) {
+                delegate.remove();
+            } else {
+                mutableMap().remove(last.getKey());
+            }
+            last = null;
+        }
+    }
+
+    /** An entry of a CopyOnWriteMap, whose {@link #setValue} writes through to the map. */
+    private final class Entry extends AbstractMap.SimpleEntry<K, V> {
+
+        /** Unique identifier for serialization. */
+        private static final long serialVersionUID = 20200901L;
+
+        /** The entry of the backing map. */
+        private final transient Map.Entry<K, V> delegate;
+
+        /** The backing map that contains {@link #delegate}. */
+        private final transient HashMap<K, V> entryMap;
+
+        /**
+         * Creates an entry that writes through to this CopyOnWriteMap.
+         *
+         * @param delegate the entry of the backing map
+         * @param entryMap the backing map that contains {@code delegate}
+         */
+        Entry(Map.Entry<K, V> delegate, HashMap<K, V> entryMap) {
+            super(delegate);
+            this.delegate = delegate;
+            this.entryMap = entryMap;
+        }
+
+        @Override
+        public V setValue(V value) {
+            super.setValue(value);
+            if (storage.map == entryMap && storage.owners == 1) {
+                return delegate.setValue(value);
+            }
+            return mutableMap().put(getKey(), value);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.checkerframework.dataflow.util;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import org.checkerframework.checker.interning.qual.FindDistinct;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.javacutil.BugInCF;
 
 /**
@@ -47,6 +48,27 @@ public final class IdentityMostlySingleton<T extends Object> extends AbstractMos
         }
     }
 
+    @SuppressWarnings("interning:not.interned") // this class uses object identity
+    @Override
+    public boolean remove(@Nullable Object o) {
+        switch (state) {
+            case EMPTY:
+                return false;
+            case SINGLETON:
+                if (o != value) {
+                    return false;
+                }
+                state = State.EMPTY;
+                value = null;
+                return true;
+            case ANY:
+                assert set != null : "@AssumeAssertion(nullness): set initialized before";
+                return set.remove(o);
+            default:
+                throw new BugInCF("Unhandled state " + state);
+        }
+    }
+
     @SuppressWarnings("interning:not.interned") // this class uses object identity
     @Override
     public boolean contains(Object o) {
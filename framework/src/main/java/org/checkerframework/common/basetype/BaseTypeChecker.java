@@ -1,6 +1,7 @@
 package org.checkerframework.common.basetype;
 
 import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.util.TreePath;
 import com.sun.tools.javac.processing.JavacProcessingEnvironment;
@@ -14,6 +15,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -31,18 +33,23 @@ import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signature.qual.ClassGetName;
 import org.checkerframework.common.reflection.MethodValChecker;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceDriver;
 import org.checkerframework.dataflow.cfg.CFGVisualizer;
+import org.checkerframework.framework.flow.CFGCache;
 import org.checkerframework.framework.qual.SubtypeOf;
 import org.checkerframework.framework.source.SourceChecker;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
 import org.checkerframework.framework.type.QualifierHierarchy;
 import org.checkerframework.framework.type.TypeHierarchy;
+import org.checkerframework.framework.util.FlowExpressionParseUtil;
+import org.checkerframework.framework.util.PhaseProfiler;
 import org.checkerframework.framework.util.TreePathCacher;
 import org.checkerframework.javacutil.AbstractTypeProcessor;
 import org.checkerframework.javacutil.AnnotationProvider;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.InternalUtils;
+import org.checkerframework.javacutil.MethodIndex;
 import org.checkerframework.javacutil.TypeSystemError;
 import org.checkerframework.javacutil.UserError;
 
@@ -144,6 +151,13 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
      */
     private TreePathCacher treePathCacher = null;
 
+    /**
+     * The control-flow graphs shared between this checker and the other checkers of the same
+     * compound checker, or null if this checker has no subchecker and no parent checker.
+     * Initialized in instantiateSubcheckers.
+     */
+    private @Nullable CFGCache cfgCache = null;
+
     @Override
     protected void setRoot(CompilationUnitTree newRoot) {
         super.setRoot(newRoot);
@@ -393,6 +407,54 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
         return null;
     }
 
+    /**
+     * Discards the results of the dataflow analysis of {@code method} in this checker and in all of
+     * its subcheckers, if the "discardFlowResults" option was given. Does nothing unless this
+     * checker has no parent checker: a checker may query the type factories of its subcheckers
+     * until it has visited {@code method}, and the checker without a parent visits it last.
+     *
+     * @param method a method that has been visited by this checker
+     * @see GenericAnnotatedTypeFactory#discardFlowResults
+     */
+    public void discardFlowResults(MethodTree method) {
+        if (parentChecker != null) {
+            return;
+        }
+        for (BaseTypeChecker subchecker : getSubcheckers()) {
+            GenericAnnotatedTypeFactory<?, ?, ?, ?> factory = subchecker.getTypeFactory();
+            if (factory != null) {
+                factory.discardFlowResults(method);
+            }
+        }
+        getTypeFactory().discardFlowResults(method);
+    }
+
+    /**
+     * The trees about which a "flow.iteration.limit" warning has been issued for the current
+     * top-level class, by this checker or by any of its subcheckers. Used only if this checker has
+     * no parent checker.
+     */
+    private final Set<Tree> flowIterationLimitTrees =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Issues a "flow.iteration.limit" warning about {@code tree}, unless one has already been
+     * issued about it by a checker of the same compound checker. Each checker of a compound checker
+     * analyzes the same code, so several of them may reach the limit for the same method.
+     *
+     * @param tree the method, lambda expression, or initializer whose dataflow analysis reached the
+     *     limit given by the "flowIterationLimit" option
+     */
+    public void reportFlowIterationLimit(Tree tree) {
+        BaseTypeChecker root = this;
+        while (root.parentChecker instanceof BaseTypeChecker) {
+            root = (BaseTypeChecker) root.parentChecker;
+        }
+        if (root.flowIterationLimitTrees.add(tree)) {
+            reportWarning(tree, "flow.iteration.limit", getOption("flowIterationLimit"));
+        }
+    }
+
     /*
      * Performs a depth first search for all checkers this checker depends on.
      * The depth first search ensures that the collection has the correct order the checkers need to be run in.
@@ -432,6 +494,10 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
 
             instance.setProcessingEnvironment(this.processingEnv);
             instance.treePathCacher = this.getTreePathCacher();
+            if (cfgCache == null) {
+                cfgCache = new CFGCache();
+            }
+            instance.cfgCache = cfgCache;
             // Prevent the new checker from storing non-immediate subcheckers
             instance.subcheckers = Collections.emptyList();
             immediateSubcheckers.add(instance);
@@ -474,9 +540,30 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
         return treePathCacher;
     }
 
+    /**
+     * Returns the control-flow graphs shared between this checker and the other checkers of the
+     * same compound checker.
+     *
+     * @return the shared control-flow graphs, or null if this checker has no subchecker and no
+     *     parent checker
+     */
+    public @Nullable CFGCache getCFGCache() {
+        return cfgCache;
+    }
+
     // AbstractTypeProcessor delegation
     @Override
     public void typeProcess(TypeElement element, TreePath tree) {
+        if (parentChecker == null
+                && (!WholeProgramInferenceDriver.shouldTypeCheck(element)
+                        || replayCachedResult(element, tree))) {
+            return;
+        }
+
+        if (parentChecker == null) {
+            flowIterationLimitTrees.clear();
+        }
+
         if (!getSubcheckers().isEmpty()) {
             // TODO: I expected this to only be necessary if (parentChecker == null).
             // However, the NestedAggregateChecker fails otherwise.
@@ -516,6 +603,10 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
             // Update errsOnLastExit to reflect the errors issued.
             this.errsOnLastExit = log.nerrors;
         }
+
+        if (parentChecker == null) {
+            storeCachedResult();
+        }
     }
 
     /**
@@ -567,7 +658,7 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
     protected void printOrStoreMessage(
             Diagnostic.Kind kind, String message, Tree source, CompilationUnitTree root) {
         assert this.currentRoot == root;
-        StackTraceElement[] trace = Thread.currentThread().getStackTrace();
+        StackTraceElement[] trace = getStackTraceForMessage();
         if (messageStore == null) {
             super.printOrStoreMessage(kind, message, source, root, trace);
         } else {
@@ -667,6 +758,31 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
         }
     }
 
+    /**
+     * Map from each subchecker to its index in {@link #getSubcheckers}. Initialized by {@link
+     * #checkerIndex}.
+     */
+    private @MonotonicNonNull Map<BaseTypeChecker, Integer> subcheckerIndices = null;
+
+    /**
+     * Returns the position of the given checker in the order in which the checkers run: its index
+     * in {@link #getSubcheckers}, or the number of subcheckers for this checker itself.
+     *
+     * @param checker this checker or one of its subcheckers
+     * @return the position of {@code checker} in the order in which the checkers run
+     */
+    private int checkerIndex(BaseTypeChecker checker) {
+        if (subcheckerIndices == null) {
+            List<BaseTypeChecker> subcheckers = getSubcheckers();
+            subcheckerIndices = new IdentityHashMap<>(subcheckers.size());
+            for (int i = 0; i < subcheckers.size(); i++) {
+                subcheckerIndices.put(subcheckers.get(i), i);
+            }
+        }
+        Integer index = subcheckerIndices.get(checker);
+        return index == null ? subcheckerIndices.size() : index;
+    }
+
     /**
      * Compares two {@link CheckerMessage}s. Compares first by position at which the error will be
      * printed, then by kind of message, then by the message string, and finally by the order in
@@ -697,16 +813,7 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
 
         // Sort by order in which the checkers are run. (All the subcheckers,
         // followed by the checker.)
-        List<BaseTypeChecker> subcheckers = BaseTypeChecker.this.getSubcheckers();
-        int o1Index = subcheckers.indexOf(o1.checker);
-        int o2Index = subcheckers.indexOf(o2.checker);
-        if (o1Index == -1) {
-            o1Index = subcheckers.size();
-        }
-        if (o2Index == -1) {
-            o2Index = subcheckers.size();
-        }
-        int checkercmp = Integer.compare(o1Index, o2Index);
+        int checkercmp = Integer.compare(checkerIndex(o1.checker), checkerIndex(o2.checker));
         if (checkercmp == 0) {
             // If the two messages are from the same checker, sort by message.
             return msgcmp;
@@ -785,6 +892,47 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
         return false;
     }
 
+    @Override
+    protected Map<String, PhaseProfiler> getProfilers() {
+        Map<String, PhaseProfiler> result = new LinkedHashMap<>();
+        for (BaseTypeChecker checker : getSubcheckers()) {
+            result.put(checker.getClass().getName(), checker.getProfiler());
+        }
+        result.putAll(super.getProfilers());
+        return result;
+    }
+
+    @Override
+    protected void printStats() {
+        super.printStats();
+        printCacheStatistics(this);
+        for (BaseTypeChecker checker : getSubcheckers()) {
+            printCacheStatistics(checker);
+        }
+        if (parentChecker == null) {
+            if (cfgCache != null) {
+                System.out.println(cfgCache.statistics());
+            }
+            System.out.println(FlowExpressionParseUtil.getCacheStatistics());
+            System.out.println(MethodIndex.instance(processingEnv).statistics());
+        }
+    }
+
+    /**
+     * Prints the statistics of the caches of the given checker's type factory.
+     *
+     * @param checker a checker
+     */
+    private static void printCacheStatistics(BaseTypeChecker checker) {
+        AnnotatedTypeFactory atf = checker.getTypeFactory();
+        if (atf != null) {
+            System.out.printf(
+                    "Caches of %s (%s):%n",
+                    atf.getClass().getSimpleName(), checker.getClass().getSimpleName());
+            System.out.println(atf.getCacheStatistics());
+        }
+    }
+
     @Override
     protected void shutdownHook() {
         super.shutdownHook();
@@ -10,7 +10,9 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Name;
@@ -40,6 +42,13 @@ public class ReflectiveEvaluator {
      */
     private boolean reportWarnings;
 
+    /**
+     * Map from a method to the {@link Method} object that {@link #getMethodObject} found for it.
+     * Methods that could not be found are not stored, so that a warning is issued at each of their
+     * invocations.
+     */
+    private final Map<ExecutableElement, Method> methodObjects = new HashMap<>();
+
     public ReflectiveEvaluator(
             BaseTypeChecker checker, ValueAnnotatedTypeFactory factory, boolean reportWarnings) {
         this.checker = checker;
@@ -176,6 +185,10 @@ public class ReflectiveEvaluator {
      */
     private Method getMethodObject(MethodInvocationTree tree) {
         final ExecutableElement ele = TreeUtils.elementFromUse(tree);
+        Method cached = methodObjects.get(ele);
+        if (cached != null) {
+            return cached;
+        }
         List<Class<?>> paramClzz = null;
         try {
             @DotSeparatedIdentifiers Name clazz =
@@ -191,6 +204,7 @@ public class ReflectiveEvaluator {
             if (!acc) {
                 method.setAccessible(true);
             }
+            methodObjects.put(ele, method);
             return method;
         } catch (ClassNotFoundException | UnsupportedClassVersionError | NoClassDefFoundError e) {
             if (reportWarnings) {
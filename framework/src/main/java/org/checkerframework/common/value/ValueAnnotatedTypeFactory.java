@@ -11,6 +11,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import javax.lang.model.element.AnnotationMirror;
@@ -20,6 +21,7 @@ import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseAnnotatedTypeFactory;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.common.value.qual.ArrayLen;
@@ -125,11 +127,20 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
     /** Helper class that holds references to special methods. */
     private final ValueMethodIdentifier methods;
 
+    /**
+     * Map from an {@code @IntVal} annotation to its values, as a sorted array with no duplicates.
+     * The transfer function reads the values of the same annotations over and over; this cache
+     * decodes each of them once. See {@link #getIntValuesArray}. Null if the factory does not
+     * cache.
+     */
+    private final @Nullable Map<AnnotationMirror, long[]> intValuesCache;
+
     @SuppressWarnings("StaticAssignmentInConstructor") // static Range.ignoreOverflow is gross
     public ValueAnnotatedTypeFactory(BaseTypeChecker checker) {
         super(checker);
 
         reportEvalWarnings = checker.hasOption(ValueChecker.REPORT_EVAL_WARNS);
+        intValuesCache = shouldCache ? createCache(getCacheSize()) : null;
         Range.ignoreOverflow = checker.hasOption(ValueChecker.IGNORE_RANGE_OVERFLOW);
         evaluator = new ReflectiveEvaluator(checker, this, reportEvalWarnings);
 
@@ -617,6 +628,35 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         }
     }
 
+    /**
+     * Returns a {@link IntVal} or {@link IntRange} annotation using the first {@code size} elements
+     * of {@code values}, which must be sorted and have no duplicates. This is like {@link
+     * #createIntValAnnotation(List)}, but boxes the values only if it creates an {@link IntVal}.
+     *
+     * @param values an array whose first {@code size} elements are sorted and distinct
+     * @param size the number of values
+     * @return an annotation that represents the values
+     */
+    /* package-private */ AnnotationMirror createIntValAnnotation(long[] values, int size) {
+        if (size == 0) {
+            return BOTTOMVAL;
+        }
+        if (size > MAX_VALUES) {
+            return createIntRangeAnnotation(values[0], values[size - 1]);
+        }
+        List<Long> valuesList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            valuesList.add(values[i]);
+        }
+        AnnotationBuilder builder = new AnnotationBuilder(processingEnv, IntVal.class);
+        builder.setValue("value", valuesList);
+        AnnotationMirror result = builder.build();
+        if (intValuesCache != null) {
+            intValuesCache.put(result, Arrays.copyOf(values, size));
+        }
+        return result;
+    }
+
     /**
      * Convert an {@code @IntRange} annotation to an {@code @IntVal} annotation, or to UNKNOWNVAL if
      * the input is too wide to be represented as an {@code @IntVal}.
@@ -988,6 +1028,29 @@ public class ValueAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         return list;
     }
 
+    /**
+     * Returns the values of an {@code @IntVal} annotation as a sorted array with no duplicates.
+     * This is like {@link #getIntValues}, but it does not box the values, and if the factory
+     * caches, it decodes each annotation only once. Clients must not modify the returned array.
+     *
+     * @param intAnno an {@code @IntVal} annotation
+     * @return the values of {@code intAnno}, sorted and with no duplicates
+     */
+    /* package-private */ long[] getIntValuesArray(AnnotationMirror intAnno) {
+        long[] values = intValuesCache == null ? null : intValuesCache.get(intAnno);
+        if (values == null) {
+            List<Long> valuesList = getIntValues(intAnno);
+            values = new long[valuesList.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = valuesList.get(i);
+            }
+            if (intValuesCache != null) {
+                intValuesCache.put(intAnno, values);
+            }
+        }
+        return values;
+    }
+
     /**
      * Returns the set of possible values as a sorted list with no duplicate values. Returns the
      * empty list if no values are possible (for dead code). Returns null if any value is possible
@@ -11,6 +11,7 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.value.qual.ArrayLen;
 import org.checkerframework.common.value.qual.ArrayLenRange;
 import org.checkerframework.common.value.qual.StringVal;
@@ -748,6 +749,10 @@ public class ValueTransfer extends CFTransfer {
             TransferInput<CFValue, CFStore> p) {
         if (!isIntRangeOrIntegralUnknownVal(leftNode, p)
                 && !isIntRangeOrIntegralUnknownVal(rightNode, p)) {
+            AnnotationMirror intValResult = calculateIntValBinaryOp(leftNode, rightNode, op, p);
+            if (intValResult != null) {
+                return intValResult;
+            }
             List<Number> resultValues = calculateValuesBinaryOp(leftNode, rightNode, op, p);
             return atypefactory.createNumberAnnotationMirror(resultValues);
         } else {
@@ -815,6 +820,196 @@ public class ValueTransfer extends CFTransfer {
         }
     }
 
+    /**
+     * Calculates the possible values after a binary operation between two integral nodes whose
+     * values are given by {@code @IntVal} annotations. This is the common case of {@link
+     * #calculateValuesBinaryOp}; it computes on primitive arrays, without boxing any intermediate
+     * value, and creates an annotation only for the final values.
+     *
+     * @param leftNode the node that represents the left operand
+     * @param rightNode the node that represents the right operand
+     * @param op the operator type
+     * @param p the transfer input
+     * @return the result annotation mirror, or null if an operand is not integral or is not
+     *     annotated with {@code @IntVal}
+     */
+    private @Nullable AnnotationMirror calculateIntValBinaryOp(
+            Node leftNode,
+            Node rightNode,
+            NumericalBinaryOps op,
+            TransferInput<CFValue, CFStore> p) {
+        AnnotationMirror leftAnno = getValueAnnotation(leftNode, p);
+        AnnotationMirror rightAnno = getValueAnnotation(rightNode, p);
+        if (leftAnno == null
+                || rightAnno == null
+                || !AnnotationUtils.areSameByName(
+                        leftAnno, ValueAnnotatedTypeFactory.INTVAL_NAME)
+                || !AnnotationUtils.areSameByName(
+                        rightAnno, ValueAnnotatedTypeFactory.INTVAL_NAME)) {
+            return null;
+        }
+        TypeKind leftKind = NumberUtils.unboxPrimitive(leftNode.getType());
+        TypeKind rightKind = NumberUtils.unboxPrimitive(rightNode.getType());
+        if (!isIntegralKind(leftKind) || !isIntegralKind(rightKind)) {
+            return null;
+        }
+        long[] lefts = atypefactory.getIntValuesArray(leftAnno);
+        long[] rights = atypefactory.getIntValuesArray(rightAnno);
+        // The type of a shift is the promoted type of its left operand alone.
+        boolean isLong;
+        switch (op) {
+            case SHIFT_LEFT:
+            case SIGNED_SHIFT_RIGHT:
+            case UNSIGNED_SHIFT_RIGHT:
+                isLong = leftKind == TypeKind.LONG;
+                break;
+            default:
+                isLong = leftKind == TypeKind.LONG || rightKind == TypeKind.LONG;
+                break;
+        }
+        long[] results = new long[lefts.length * rights.length];
+        int size = 0;
+        for (long leftValue : lefts) {
+            long left = castIntegralValue(leftValue, leftKind);
+            for (long rightValue : rights) {
+                long right = castIntegralValue(rightValue, rightKind);
+                if (right == 0
+                        && (op == NumericalBinaryOps.DIVISION
+                                || op == NumericalBinaryOps.REMAINDER)) {
+                    continue;
+                }
+                results[size++] =
+                        isLong
+                                ? calculateLongBinaryOp(left, right, op)
+                                : calculateIntBinaryOp((int) left, (int) right, op);
+            }
+        }
+        Arrays.sort(results, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || results[i] != results[distinct - 1]) {
+                results[distinct++] = results[i];
+            }
+        }
+        return atypefactory.createIntValAnnotation(results, distinct);
+    }
+
+    /**
+     * Returns true if {@code kind} is an integral primitive type.
+     *
+     * @param kind a type kind
+     * @return true if {@code kind} is byte, short, char, int, or long
+     */
+    private static boolean isIntegralKind(TypeKind kind) {
+        switch (kind) {
+            case BYTE:
+            case SHORT:
+            case CHAR:
+            case INT:
+            case LONG:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Casts a value to an integral type, as {@link NumberUtils#castNumbers} does.
+     *
+     * @param value a value
+     * @param kind an integral primitive type
+     * @return {@code value} cast to {@code kind}
+     */
+    private static long castIntegralValue(long value, TypeKind kind) {
+        switch (kind) {
+            case BYTE:
+                return (byte) value;
+            case SHORT:
+                return (short) value;
+            case CHAR:
+            case INT:
+                return (int) value;
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Applies a binary operation to two {@code int} values. The right operand must not be zero
+     * for a division or remainder.
+     *
+     * @param left the left operand
+     * @param right the right operand
+     * @param op the operator type
+     * @return the result of the operation
+     */
+    private static int calculateIntBinaryOp(int left, int right, NumericalBinaryOps op) {
+        switch (op) {
+            case ADDITION:
+                return left + right;
+            case SUBTRACTION:
+                return left - right;
+            case MULTIPLICATION:
+                return left * right;
+            case DIVISION:
+                return left / right;
+            case REMAINDER:
+                return left % right;
+            case SHIFT_LEFT:
+                return left << right;
+            case SIGNED_SHIFT_RIGHT:
+                return left >> right;
+            case UNSIGNED_SHIFT_RIGHT:
+                return left >>> right;
+            case BITWISE_AND:
+                return left & right;
+            case BITWISE_OR:
+                return left | right;
+            case BITWISE_XOR:
+                return left ^ right;
+            default:
+                throw new BugInCF("ValueTransfer: unsupported operation: " + op);
+        }
+    }
+
+    /**
+     * Applies a binary operation to two {@code long} values. The right operand must not be zero
+     * for a division or remainder.
+     *
+     * @param left the left operand
+     * @param right the right operand
+     * @param op the operator type
+     * @return the result of the operation
+     */
+    private static long calculateLongBinaryOp(long left, long right, NumericalBinaryOps op) {
+        switch (op) {
+            case ADDITION:
+                return left + right;
+            case SUBTRACTION:
+                return left - right;
+            case MULTIPLICATION:
+                return left * right;
+            case DIVISION:
+                return left / right;
+            case REMAINDER:
+                return left % right;
+            case SHIFT_LEFT:
+                return left << right;
+            case SIGNED_SHIFT_RIGHT:
+                return left >> right;
+            case UNSIGNED_SHIFT_RIGHT:
+                return left >>> right;
+            case BITWISE_AND:
+                return left & right;
+            case BITWISE_OR:
+                return left | right;
+            case BITWISE_XOR:
+                return left ^ right;
+            default:
+                throw new BugInCF("ValueTransfer: unsupported operation: " + op);
+        }
+    }
+
     /** Calculate the possible values after a binary operation between two numerical type nodes. */
     private List<Number> calculateValuesBinaryOp(
             Node leftNode,
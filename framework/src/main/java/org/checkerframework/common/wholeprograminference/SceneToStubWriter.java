@@ -608,7 +608,7 @@ public final class SceneToStubWriter {
             }
         }
         if (printWriter != null) {
-            printWriter.flush();
+            printWriter.close();
         }
     }
 
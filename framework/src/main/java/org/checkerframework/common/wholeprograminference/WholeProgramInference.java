@@ -5,6 +5,7 @@ import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.tools.javac.code.Symbol.ClassSymbol;
 import java.util.Map;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.dataflow.cfg.node.LocalVariableNode;
@@ -14,6 +15,7 @@ import org.checkerframework.dataflow.cfg.node.ObjectCreationNode;
 import org.checkerframework.dataflow.cfg.node.ReturnNode;
 import org.checkerframework.framework.qual.IgnoreInWholeProgramInference;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
 
@@ -173,6 +175,19 @@ public interface WholeProgramInference {
             Map<AnnotatedDeclaredType, ExecutableElement> overriddenMethods,
             AnnotatedTypeFactory atf);
 
+    /**
+     * Adds to {@code type} the annotations inferred so far for the declaration of {@code elt}, in
+     * each location of {@code type} that has no annotation in the same hierarchy. Does nothing
+     * unless inference is being run to a fixpoint by {@link WholeProgramInferenceDriver}, in which
+     * case the inferred annotations take the place of the annotations that {@code
+     * insert-annotations-to-source} would have written into the source code.
+     *
+     * @param elt a field, method, constructor, or formal parameter
+     * @param type the type of {@code elt}, as written in source code; side-effected by this method
+     * @param atf the annotated type factory of a given type system
+     */
+    void addInferredAnnotations(Element elt, AnnotatedTypeMirror type, AnnotatedTypeFactory atf);
+
     /**
      * Writes the inferred results to a file. Ideally should be called at the end of the
      * type-checking process.
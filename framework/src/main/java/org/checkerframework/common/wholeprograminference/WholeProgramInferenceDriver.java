@@ -0,0 +1,455 @@
+package org.checkerframework.common.wholeprograminference;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.JCTree.JCClassDecl;
+import com.sun.tools.javac.tree.JCTree.JCNewClass;
+import com.sun.tools.javac.tree.TreeInfo;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * Runs whole-program inference to a fixpoint within a single JVM.
+ *
+ * <p>The script {@code checker/bin/infer-and-annotate.sh} reaches a fixpoint by running javac with
+ * {@code -Ainfer}, inserting the inferred annotations into the source code, and starting over,
+ * until the .jaif files stop changing. This class instead compiles the program repeatedly within
+ * one JVM, and reuses the same {@link WholeProgramInferenceScenes} for each checker in every
+ * iteration. The annotations inferred so far refine the declared types of fields, methods, and
+ * parameters, as if they had been written in the source code (see {@link
+ * WholeProgramInference#addInferredAnnotations}). After the first iteration, only the classes that
+ * refer to a class whose inferred annotations changed in the previous iteration are type-checked;
+ * the other classes are still compiled, but {@link #shouldTypeCheck} tells the checker to skip
+ * them. After each iteration, the symbols stored with the inferred annotations are replaced by
+ * those of the new compilation (see {@link WholeProgramInferenceScenesStorage#rebindSymbols}).
+ * When an iteration changes no inferred annotation, the results are written to {@link
+ * WholeProgramInferenceScenesStorage#JAIF_FILES_PATH}, once.
+ *
+ * <p>The arguments are those of {@code infer-and-annotate.sh}, except that there are no arguments
+ * for {@code insert-annotations-to-source}, and the processors must be fully-qualified class
+ * names:
+ *
+ * <ol>
+ *   <li>A comma-separated list of processors.
+ *   <li>The classpath of the program.
+ *   <li>Optional: Options for javac and the checker, each starting with a hyphen. {@code
+ *       -Ainfer=jaifs} is used unless an {@code -Ainfer} option is given.
+ *   <li>Optional: .jaif files, which are copied to {@link
+ *       WholeProgramInferenceScenesStorage#JAIF_FILES_PATH} and used as input.
+ *   <li>The .java files of the program.
+ * </ol>
+ *
+ * Afterward, {@code insert-annotations-to-source} can insert the inferred annotations into the
+ * program in a single run.
+ *
+ * @checker_framework.manual #whole-program-inference Whole-program inference
+ */
+public class WholeProgramInferenceDriver {
+
+    /** The driver whose iterations are being run, or null if no driver is running. */
+    private static @Nullable WholeProgramInferenceDriver running = null;
+
+    /**
+     * Map from the name of a checker class to the whole-program inference that is used by every
+     * instance of that checker.
+     */
+    private final Map<String, WholeProgramInferenceScenes> inferences = new LinkedHashMap<>();
+
+    /**
+     * Map from the path of a .jaif file to the qualified names of the top-level classes whose
+     * type-checking reads the annotations stored in it.
+     */
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+
+    /**
+     * The qualified names of the top-level classes to type-check in the current iteration, or null
+     * to type-check all classes.
+     */
+    private @Nullable Set<String> worklist = null;
+
+    /** The number of top-level classes type-checked in the current iteration. */
+    private int classesChecked = 0;
+
+    /** The number of errors issued by javac in the current iteration. */
+    private int errors = 0;
+
+    /** Creates a new driver. */
+    private WholeProgramInferenceDriver() {}
+
+    /**
+     * Returns the whole-program inference that {@code checker} should use. If a driver is running,
+     * it is the same object for every instance of the checker's class, so that inferred types
+     * accumulate across iterations. Otherwise, it is a new {@link WholeProgramInferenceScenes}.
+     *
+     * @param checker the checker that performs whole-program inference
+     * @param ignoreNullAssignments indicates whether assignments where the rhs is null should be
+     *     ignored
+     * @return the whole-program inference for {@code checker} to use
+     */
+    public static WholeProgramInference getWholeProgramInference(
+            BaseTypeChecker checker, boolean ignoreNullAssignments) {
+        if (running == null) {
+            return new WholeProgramInferenceScenes(ignoreNullAssignments);
+        }
+        return running.inferences.computeIfAbsent(
+                checker.getClass().getName(),
+                name -> new WholeProgramInferenceScenes(ignoreNullAssignments, true));
+    }
+
+    /**
+     * Returns true if the given class should be type-checked. This is false only if a driver is
+     * running and no type that the class refers to changed in the previous iteration. The running
+     * driver counts the classes for which this method returns true.
+     *
+     * @param element a top-level class
+     * @return true if {@code element} should be type-checked
+     */
+    public static boolean shouldTypeCheck(TypeElement element) {
+        if (running == null) {
+            return true;
+        }
+        WholeProgramInferenceDriver driver = running;
+        if (driver.worklist != null
+                && !driver.worklist.contains(element.getQualifiedName().toString())) {
+            return false;
+        }
+        driver.classesChecked++;
+        return true;
+    }
+
+    /**
+     * Runs whole-program inference to a fixpoint.
+     *
+     * @param args the processors, the classpath, options, .jaif files, and .java files, as
+     *     described in the class documentation
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.printf(
+                    "Usage: %s processors classpath [options] [jaif files] java files%n",
+                    WholeProgramInferenceDriver.class.getName());
+            System.exit(1);
+        }
+        System.exit(runToFixpoint(args) ? 0 : 1);
+    }
+
+    /**
+     * Runs whole-program inference to a fixpoint, like {@link #main}, but returns instead of
+     * exiting.
+     *
+     * @param args the processors, the classpath, options, .jaif files, and .java files, as
+     *     described in the class documentation
+     * @return true if a fixpoint was reached, false if javac issued an error
+     */
+    public static boolean runToFixpoint(String[] args) {
+        if (args.length < 3) {
+            throw new UserError("Expected processors, a classpath, and .java files");
+        }
+        List<String> options = new ArrayList<>();
+        List<File> jaifFiles = new ArrayList<>();
+        List<File> javaFiles = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("-")) {
+                options.add(args[i]);
+            } else if (args[i].endsWith(".jaif")) {
+                jaifFiles.add(new File(args[i]));
+            } else if (args[i].endsWith(".java")) {
+                javaFiles.add(new File(args[i]));
+            }
+        }
+        WholeProgramInferenceDriver driver = new WholeProgramInferenceDriver();
+        return driver.run(args[0], args[1], options, jaifFiles, javaFiles);
+    }
+
+    /**
+     * Runs whole-program inference to a fixpoint and writes the results.
+     *
+     * @param processors a comma-separated list of fully-qualified processor names
+     * @param classpath the classpath of the program
+     * @param options options for javac and the checker
+     * @param jaifFiles .jaif files to use as input
+     * @param javaFiles the source files of the program
+     * @return true if a fixpoint was reached, false if javac issued an error
+     */
+    private boolean run(
+            String processors,
+            String classpath,
+            List<String> options,
+            List<File> jaifFiles,
+            List<File> javaFiles) {
+        prepareJaifDirectory(jaifFiles);
+
+        List<String> javacOptions = new ArrayList<>();
+        javacOptions.add("-classpath");
+        javacOptions.add(classpath);
+        javacOptions.add("-processor");
+        javacOptions.add(processors);
+        if (options.stream().noneMatch(option -> option.startsWith("-Ainfer"))) {
+            javacOptions.add("-Ainfer=jaifs");
+        }
+        javacOptions.add("-Awarns");
+        javacOptions.addAll(options);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        Iterable<? extends JavaFileObject> compilationUnits =
+                fileManager.getJavaFileObjectsFromFiles(javaFiles);
+
+        running = this;
+        try {
+            for (int iteration = 1; ; iteration++) {
+                classesChecked = 0;
+                JavacTask task =
+                        (JavacTask)
+                                compiler.getTask(
+                                        null,
+                                        fileManager,
+                                        this::report,
+                                        javacOptions,
+                                        null,
+                                        compilationUnits);
+                DependencyCollector collector = new DependencyCollector(task);
+                task.addTaskListener(collector);
+                try {
+                    task.analyze();
+                } catch (IOException e) {
+                    throw new UserError("Problem while compiling: %s", e.getMessage());
+                }
+                if (errors != 0) {
+                    return false;
+                }
+                for (WholeProgramInferenceScenes inference : inferences.values()) {
+                    inference.getStorage().rebindSymbols(collector.classSymbols);
+                }
+
+                Set<String> changedScenes = new HashSet<>();
+                for (WholeProgramInferenceScenes inference : inferences.values()) {
+                    changedScenes.addAll(inference.getStorage().getChangedScenes());
+                    inference.getStorage().clearChangedScenes();
+                }
+                System.out.printf(
+                        "Iteration %d: type-checked %d classes; inferred types changed in %d"
+                                + " classes%n",
+                        iteration, classesChecked, changedScenes.size());
+                if (changedScenes.isEmpty()) {
+                    break;
+                }
+                Set<String> nextWorklist = new HashSet<>();
+                for (String jaifPath : changedScenes) {
+                    Set<String> classes = dependents.get(jaifPath);
+                    if (classes != null) {
+                        nextWorklist.addAll(classes);
+                    }
+                }
+                worklist = nextWorklist;
+            }
+        } finally {
+            running = null;
+        }
+
+        for (WholeProgramInferenceScenes inference : inferences.values()) {
+            inference.writeDeferredResults();
+        }
+        return true;
+    }
+
+    /**
+     * Empties {@link WholeProgramInferenceScenesStorage#JAIF_FILES_PATH}, as {@code
+     * infer-and-annotate.sh} does, and copies the given .jaif files into it.
+     *
+     * @param jaifFiles .jaif files to use as input
+     */
+    private static void prepareJaifDirectory(List<File> jaifFiles) {
+        File jaifDir = new File(WholeProgramInferenceScenesStorage.JAIF_FILES_PATH);
+        File[] oldFiles = jaifDir.listFiles();
+        if (oldFiles != null) {
+            for (File oldFile : oldFiles) {
+                if (oldFile.isFile()) {
+                    oldFile.delete();
+                }
+            }
+        }
+        jaifDir.mkdirs();
+        for (File jaifFile : jaifFiles) {
+            try {
+                Files.copy(
+                        jaifFile.toPath(),
+                        new File(jaifDir, jaifFile.getName()).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new UserError("Problem while copying %s: %s", jaifFile, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Prints a diagnostic issued by javac if it is an error. Warnings, including all those issued
+     * by the checker because of {@code -Awarns}, are discarded.
+     *
+     * @param diagnostic a diagnostic issued by javac
+     */
+    private void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+        if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+            errors++;
+            System.err.println(diagnostic);
+        }
+    }
+
+    /**
+     * Records, for every analyzed top-level class, the .jaif files whose annotations its
+     * type-checking reads. These are the files of the classes that it declares, of the classes
+     * whose fields, methods, and constructors it refers to, and of all the supertypes of the
+     * classes that it declares, since a method may override a method of any of them. Also records
+     * the symbols of the classes of the compilation.
+     *
+     * <p>A new DependencyCollector is used in every iteration, because the dependencies are
+     * recorded as the classes are analyzed, and every iteration analyzes every class.
+     */
+    private class DependencyCollector implements TaskListener {
+
+        /** The Trees instance of the compilation. */
+        private final Trees trees;
+
+        /** Map from the binary name of each class declared in the compilation to its symbol. */
+        final Map<String, ClassSymbol> classSymbols = new HashMap<>();
+
+        /**
+         * Creates a DependencyCollector for the given compilation.
+         *
+         * @param task the compilation
+         */
+        DependencyCollector(JavacTask task) {
+            this.trees = Trees.instance(task);
+        }
+
+        @Override
+        public void started(TaskEvent e) {}
+
+        @Override
+        public void finished(TaskEvent e) {
+            if (e.getKind() != TaskEvent.Kind.ANALYZE || e.getTypeElement() == null) {
+                return;
+            }
+            String topLevelName = e.getTypeElement().getQualifiedName().toString();
+            Tree tree = trees.getTree(e.getTypeElement());
+            if (tree == null) {
+                return;
+            }
+            new TreeScanner<Void, Void>() {
+                @Override
+                public Void scan(Tree tree, Void p) {
+                    if (tree instanceof JCTree) {
+                        Symbol sym =
+                                tree instanceof JCNewClass
+                                        ? ((JCNewClass) tree).constructor
+                                        : TreeInfo.symbol((JCTree) tree);
+                        if (sym instanceof MethodSymbol
+                                || (sym instanceof VarSymbol && sym.owner instanceof ClassSymbol)) {
+                            addDependency(sym.enclClass(), topLevelName);
+                        }
+                    }
+                    return super.scan(tree, p);
+                }
+
+                @Override
+                public Void visitClass(ClassTree classTree, Void p) {
+                    ClassSymbol classSym = ((JCClassDecl) classTree).sym;
+                    if (classSym != null) {
+                        classSymbols.put(classSym.flatName().toString(), classSym);
+                        addSupertypeDependencies(classSym, topLevelName);
+                    }
+                    return super.visitClass(classTree, p);
+                }
+            }.scan(tree, null);
+        }
+
+        /**
+         * Records that type-checking the given top-level class reads the annotations inferred for
+         * {@code classSym} and for all of its supertypes.
+         *
+         * @param classSym a class declared by the top-level class
+         * @param topLevelName the qualified name of the top-level class
+         */
+        private void addSupertypeDependencies(ClassSymbol classSym, String topLevelName) {
+            Set<ClassSymbol> visited = new HashSet<>();
+            ArrayDeque<ClassSymbol> worklist = new ArrayDeque<>();
+            worklist.add(classSym);
+            while (!worklist.isEmpty()) {
+                ClassSymbol current = worklist.remove();
+                if (!visited.add(current)) {
+                    continue;
+                }
+                addDependency(current, topLevelName);
+                List<TypeMirror> supertypes = new ArrayList<>(current.getInterfaces());
+                supertypes.add(current.getSuperclass());
+                for (TypeMirror supertype : supertypes) {
+                    if (supertype.getKind() == TypeKind.DECLARED) {
+                        worklist.add((ClassSymbol) ((DeclaredType) supertype).asElement());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Records that type-checking the given top-level class reads the annotations inferred for
+         * {@code classSym}.
+         *
+         * @param classSym a class whose inferred annotations are read
+         * @param topLevelName the qualified name of the top-level class that reads them
+         */
+        private void addDependency(@Nullable ClassSymbol classSym, String topLevelName) {
+            if (classSym == null) {
+                return;
+            }
+            String jaifPath = jaifPath(classSym.flatName().toString());
+            dependents.computeIfAbsent(jaifPath, path -> new HashSet<>()).add(topLevelName);
+        }
+    }
+
+    /**
+     * Returns the path of the .jaif file that stores the annotations inferred for the given class.
+     * It is the same for every checker.
+     *
+     * @param className the binary name of a class
+     * @return the path of the .jaif file for {@code className}
+     */
+    private String jaifPath(String className) {
+        if (inferences.isEmpty()) {
+            throw new BugInCF("No checker performs whole-program inference");
+        }
+        return inferences.values().iterator().next().getStorage().getJaifPath(className);
+    }
+}
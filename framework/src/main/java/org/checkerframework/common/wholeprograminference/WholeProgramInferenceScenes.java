@@ -11,8 +11,10 @@ import java.util.List;
 import java.util.Map;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.VariableElement;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signature.qual.BinaryName;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.dataflow.cfg.node.FieldAccessNode;
@@ -86,6 +88,24 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
     /** The interface to the AScene library itself, which stores the inferred annotations. */
     private final WholeProgramInferenceScenesStorage storage;
 
+    /**
+     * Whether this object is reused by successive compilations run by {@link
+     * WholeProgramInferenceDriver}. If so, the declared types of elements are refined by the
+     * annotations inferred for them, and {@link #writeResultsToFile} only records its arguments
+     * for use by {@link #writeDeferredResults}.
+     */
+    private final boolean isIterated;
+
+    /** The output format passed to the last call of {@link #writeResultsToFile}, or null. */
+    private @Nullable OutputFormat deferredOutputFormat = null;
+
+    /**
+     * The canonical name of the class of the checker passed to the last call of {@link
+     * #writeResultsToFile}, or null. The checker itself is not retained: it belongs to a
+     * compilation that has finished by the time {@link #writeDeferredResults} is called.
+     */
+    private @Nullable String deferredCheckerName = null;
+
     /**
      * Default constructor.
      *
@@ -93,7 +113,29 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
      *     ignored
      */
     public WholeProgramInferenceScenes(boolean ignoreNullAssignments) {
-        storage = new WholeProgramInferenceScenesStorage(ignoreNullAssignments);
+        this(ignoreNullAssignments, false);
+    }
+
+    /**
+     * Creates a new WholeProgramInferenceScenes.
+     *
+     * @param ignoreNullAssignments indicates whether assignments where the rhs is null should be
+     *     ignored
+     * @param isIterated whether this object is reused by successive compilations run by {@link
+     *     WholeProgramInferenceDriver}
+     */
+    public WholeProgramInferenceScenes(boolean ignoreNullAssignments, boolean isIterated) {
+        storage = new WholeProgramInferenceScenesStorage(ignoreNullAssignments, isIterated);
+        this.isIterated = isIterated;
+    }
+
+    /**
+     * Returns the storage that holds the annotations inferred by this object.
+     *
+     * @return the storage that holds the inferred annotations
+     */
+    public WholeProgramInferenceScenesStorage getStorage() {
+        return storage;
     }
 
     @Override
@@ -432,12 +474,121 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
         }
     }
 
-    /** Write all modified scenes into .jaif files or stub files. */
+    @Override
+    public void addInferredAnnotations(
+            Element elt, AnnotatedTypeMirror type, AnnotatedTypeFactory atf) {
+        if (!isIterated || !ElementUtils.isElementFromSourceCode(elt)) {
+            return;
+        }
+        switch (elt.getKind()) {
+            case FIELD:
+                {
+                    AClass clazz = getAClass(((VarSymbol) elt).enclClass());
+                    AField field = clazz.fields.get(elt.getSimpleName().toString());
+                    if (field != null) {
+                        storage.addInferredAnnotations(field.type, type, atf);
+                    }
+                    break;
+                }
+            case METHOD:
+            case CONSTRUCTOR:
+                {
+                    ExecutableElement methodElt = (ExecutableElement) elt;
+                    AMethod method = getAMethod(methodElt);
+                    if (method == null) {
+                        break;
+                    }
+                    AnnotatedExecutableType methodType = (AnnotatedExecutableType) type;
+                    if (elt.getKind() == ElementKind.METHOD) {
+                        storage.addInferredAnnotations(
+                                method.returnType, methodType.getReturnType(), atf);
+                    }
+                    List<AnnotatedTypeMirror> paramTypes = methodType.getParameterTypes();
+                    for (Map.Entry<Integer, AField> param : method.parameters.entrySet()) {
+                        int index = param.getKey();
+                        if (index < paramTypes.size()) {
+                            storage.addInferredAnnotations(
+                                    param.getValue().type, paramTypes.get(index), atf);
+                        }
+                    }
+                    if (methodType.getReceiverType() != null) {
+                        storage.addInferredAnnotations(
+                                method.receiver.type, methodType.getReceiverType(), atf);
+                    }
+                    break;
+                }
+            case PARAMETER:
+                {
+                    Element enclosing = elt.getEnclosingElement();
+                    if (!(enclosing instanceof ExecutableElement)) {
+                        break;
+                    }
+                    ExecutableElement methodElt = (ExecutableElement) enclosing;
+                    int index = methodElt.getParameters().indexOf(elt);
+                    AMethod method = getAMethod(methodElt);
+                    if (index == -1 || method == null) {
+                        break;
+                    }
+                    AField param = method.parameters.get(index);
+                    if (param != null) {
+                        storage.addInferredAnnotations(param.type, type, atf);
+                    }
+                    break;
+                }
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Returns the scene-lib representation of the given class.
+     *
+     * @param classSymbol a class
+     * @return the scene-lib representation of {@code classSymbol}
+     */
+    private AClass getAClass(ClassSymbol classSymbol) {
+        @SuppressWarnings("signature") // https://tinyurl.com/cfissue/3094
+        @BinaryName String className = classSymbol.flatname.toString();
+        return storage.getAClass(className, storage.getJaifPath(className), classSymbol);
+    }
+
+    /**
+     * Returns the scene-lib representation of the given method, or null if nothing has been
+     * inferred for it.
+     *
+     * @param methodElt a method or constructor
+     * @return the scene-lib representation of {@code methodElt}, or null
+     */
+    private @Nullable AMethod getAMethod(ExecutableElement methodElt) {
+        AClass clazz = getAClass(((MethodSymbol) methodElt).enclClass());
+        return clazz.methods.get(JVMNames.getJVMMethodSignature(methodElt));
+    }
+
+    /**
+     * Write all modified scenes into .jaif files or stub files. If this object is reused by
+     * successive compilations, only records the arguments, and {@link #writeDeferredResults} does
+     * the writing.
+     */
     @Override
     public void writeResultsToFile(OutputFormat outputFormat, BaseTypeChecker checker) {
+        if (isIterated) {
+            deferredOutputFormat = outputFormat;
+            deferredCheckerName = checker.getClass().getCanonicalName();
+            return;
+        }
         storage.writeScenes(outputFormat, checker);
     }
 
+    /**
+     * Writes all modified scenes, using the arguments of the last call to {@link
+     * #writeResultsToFile}. Does nothing if that method has never been called.
+     */
+    public void writeDeferredResults() {
+        if (deferredOutputFormat != null && deferredCheckerName != null) {
+            storage.writeScenes(deferredOutputFormat, deferredCheckerName);
+        }
+    }
+
     /**
      * Returns the "flatname" of the class enclosing {@code localVariableNode}
      *
@@ -8,10 +8,14 @@ import java.lang.annotation.Target;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeKind;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.signature.qual.BinaryName;
@@ -33,10 +37,13 @@ import org.checkerframework.javacutil.Pair;
 import org.checkerframework.javacutil.UserError;
 import scenelib.annotations.Annotation;
 import scenelib.annotations.el.AClass;
+import scenelib.annotations.el.AField;
+import scenelib.annotations.el.AMethod;
 import scenelib.annotations.el.AScene;
 import scenelib.annotations.el.ATypeElement;
 import scenelib.annotations.el.InnerTypeLocation;
 import scenelib.annotations.io.IndexFileParser;
+import scenelib.annotations.util.JVMNames;
 
 /**
  * This class stores annotations for fields, method return types, and method parameters.
@@ -76,12 +83,34 @@ public class WholeProgramInferenceScenesStorage {
      * corresponding Scene in the set. It is obtained by passing a class name as argument to the
      * {@link #getJaifPath} method.
      *
-     * <p>Modifying a Scene means adding (or changing) a type annotation for a field, method return
-     * type, or method parameter type in the Scene. (Scenes are modified by the method {@link
-     * #updateAnnotationSetInScene}.)
+     * <p>Modifying a Scene means adding, removing, or replacing a type annotation for a field,
+     * method return type, or method parameter type in the Scene, or deciding that an annotation in
+     * the Scene should not be written. An update by {@link #updateAnnotationSetInScene} that leaves
+     * the annotations as they were does not modify the Scene, so the Scene is not written again.
      */
     private final Set<String> modifiedScenes = new HashSet<>();
 
+    /**
+     * Scenes in which an inferred annotation was added, removed, or replaced since the last call to
+     * {@link #clearChangedScenes}. Each element is a path to a .jaif file, as in {@link
+     * #modifiedScenes}.
+     */
+    private final Set<String> changedScenes = new HashSet<>();
+
+    /**
+     * The number of annotations that have been added to {@link #annosToIgnore}. Used to detect
+     * updates that change only which annotations are written.
+     */
+    private int ignoredAnnotationCount = 0;
+
+    /**
+     * Whether the declared types of elements are refined by the annotations inferred for them, as
+     * they are when inference is run to a fixpoint by {@link WholeProgramInferenceDriver}. In that
+     * case an inferred annotation that the declared type already has is not a default annotation,
+     * and must not be omitted from the output.
+     */
+    private final boolean useInferredTypes;
+
     /**
      * Default constructor.
      *
@@ -89,17 +118,44 @@ public class WholeProgramInferenceScenesStorage {
      *     ignored
      */
     public WholeProgramInferenceScenesStorage(boolean ignoreNullAssignments) {
+        this(ignoreNullAssignments, false);
+    }
+
+    /**
+     * Creates a new storage.
+     *
+     * @param ignoreNullAssignments indicates whether assignments where the rhs is null should be
+     *     ignored
+     * @param useInferredTypes whether the declared types of elements are refined by the annotations
+     *     inferred for them; see {@link #addInferredAnnotations}
+     */
+    public WholeProgramInferenceScenesStorage(
+            boolean ignoreNullAssignments, boolean useInferredTypes) {
         this.ignoreNullAssignments = ignoreNullAssignments;
+        this.useInferredTypes = useInferredTypes;
     }
 
     /**
      * Write all modified scenes into files. (Scenes are modified by the method {@link
-     * #updateAnnotationSetInScene}.)
+     * #updateAnnotationSetInScene}.) Scenes that have not been modified since they were last
+     * written are not written again.
      *
      * @param outputFormat the output format to use when writing files
      * @param checker the checker from which this method is called, for naming stub files
      */
     public void writeScenes(OutputFormat outputFormat, BaseTypeChecker checker) {
+        writeScenes(outputFormat, checker.getClass().getCanonicalName());
+    }
+
+    /**
+     * Write all modified scenes into files. Scenes that have not been modified since they were
+     * last written are not written again.
+     *
+     * @param outputFormat the output format to use when writing files
+     * @param checkerName the canonical name of the class of the checker whose inferred annotations
+     *     are written, for naming stub files
+     */
+    public void writeScenes(OutputFormat outputFormat, String checkerName) {
         // Create WPI directory if it doesn't exist already.
         File jaifDir = new File(JAIF_FILES_PATH);
         if (!jaifDir.exists()) {
@@ -107,11 +163,26 @@ public class WholeProgramInferenceScenesStorage {
         }
         // Write scenes into files.
         for (String jaifPath : modifiedScenes) {
-            scenes.get(jaifPath).writeToFile(jaifPath, annosToIgnore, outputFormat, checker);
+            scenes.get(jaifPath).writeToFile(jaifPath, annosToIgnore, outputFormat, checkerName);
         }
         modifiedScenes.clear();
     }
 
+    /**
+     * Returns the scenes in which an inferred annotation changed since the last call to {@link
+     * #clearChangedScenes}.
+     *
+     * @return the paths of the .jaif files of the scenes whose inferred annotations changed
+     */
+    public Set<String> getChangedScenes() {
+        return Collections.unmodifiableSet(changedScenes);
+    }
+
+    /** Forgets which scenes have changed, so that later changes can be detected. */
+    public void clearChangedScenes() {
+        changedScenes.clear();
+    }
+
     /**
      * Returns the String representing the .jaif path of a class given its name.
      *
@@ -186,6 +257,51 @@ public class WholeProgramInferenceScenesStorage {
         return getAClass(className, jaifPath, null);
     }
 
+    /**
+     * Replaces the symbols stored in the scenes with those of a new compilation of the same
+     * source code. Symbols of a finished compilation must not be used by a later one, so {@link
+     * WholeProgramInferenceDriver} calls this method after each compilation. Classes that were not
+     * compiled keep their symbols.
+     *
+     * @param classSymbols map from the binary name of each class of the compilation to its symbol
+     */
+    public void rebindSymbols(Map<String, ClassSymbol> classSymbols) {
+        for (ASceneWrapper scene : scenes.values()) {
+            for (Map.Entry<String, AClass> entry : scene.getAScene().classes.entrySet()) {
+                ClassSymbol classSymbol = classSymbols.get(entry.getKey());
+                if (classSymbol == null) {
+                    continue;
+                }
+                AClass aClass = entry.getValue();
+                scene.updateSymbolInformation(aClass, classSymbol);
+                for (Element member : classSymbol.getEnclosedElements()) {
+                    if (member instanceof ExecutableElement) {
+                        ExecutableElement methodElt = (ExecutableElement) member;
+                        AMethod method =
+                                aClass.methods.get(JVMNames.getJVMMethodSignature(methodElt));
+                        if (method == null) {
+                            continue;
+                        }
+                        method.setFieldsFromMethodElement(methodElt);
+                        List<? extends VariableElement> params = methodElt.getParameters();
+                        for (Integer i : method.parameters.keySet()) {
+                            if (i < params.size()) {
+                                VariableElement param = params.get(i);
+                                method.vivifyAndAddTypeMirrorToParameter(
+                                        i, param.asType(), param.getSimpleName());
+                            }
+                        }
+                    } else if (member.getKind() == ElementKind.FIELD) {
+                        AField field = aClass.fields.get(member.getSimpleName().toString());
+                        if (field != null) {
+                            field.setTypeMirror(member.asType());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Updates the set of annotations in a location of a Scene.
      *
@@ -228,8 +344,61 @@ public class WholeProgramInferenceScenesStorage {
                 return;
             }
         }
+        Object previousAnnotations = annotationsSnapshot(type);
+        int previousIgnoredAnnotationCount = ignoredAnnotationCount;
         updateTypeElementFromATM(rhsATM, lhsATM, atf, type, 1, defLoc);
-        modifiedScenes.add(jaifPath);
+        if (!annotationsSnapshot(type).equals(previousAnnotations)) {
+            changedScenes.add(jaifPath);
+            modifiedScenes.add(jaifPath);
+        } else if (ignoredAnnotationCount != previousIgnoredAnnotationCount) {
+            modifiedScenes.add(jaifPath);
+        }
+    }
+
+    /**
+     * Returns a value that equals the value returned for another call exactly when the two
+     * ATypeElements have the same annotations on the same inner types.
+     *
+     * @param type an ATypeElement
+     * @return a representation of the annotations on {@code type} and its inner types
+     */
+    private static Object annotationsSnapshot(ATypeElement type) {
+        Map<InnerTypeLocation, Object> inner = new HashMap<>();
+        for (Map.Entry<InnerTypeLocation, ATypeElement> entry : type.innerTypes.entrySet()) {
+            inner.put(entry.getKey(), annotationsSnapshot(entry.getValue()));
+        }
+        return Pair.of(new HashSet<>(type.tlAnnotationsHere), inner);
+    }
+
+    /**
+     * Adds the annotations stored in {@code type} to {@code atm}, in each location where {@code
+     * atm} has no annotation in the same hierarchy. Only annotations supported by {@code atf} are
+     * added. Does nothing unless this storage was created to refine declared types with inferred
+     * ones.
+     *
+     * @param type the ATypeElement whose annotations to add
+     * @param atm the declared type of the element represented by {@code type}; side-effected by
+     *     this method
+     * @param atf the annotated type factory of a given type system
+     */
+    protected void addInferredAnnotations(
+            ATypeElement type, AnnotatedTypeMirror atm, AnnotatedTypeFactory atf) {
+        if (!useInferredTypes) {
+            return;
+        }
+        for (Annotation anno : getSupportedAnnosInSet(type.tlAnnotationsHere, atf)) {
+            AnnotationMirror am =
+                    AnnotationConverter.annotationToAnnotationMirror(anno, atf.getProcessingEnv());
+            if (!atm.isAnnotatedInHierarchy(am)) {
+                atm.addAnnotation(am);
+            }
+        }
+        if (atm.getKind() == TypeKind.ARRAY) {
+            AnnotatedArrayType aat = (AnnotatedArrayType) atm;
+            for (ATypeElement innerType : type.innerTypes.values()) {
+                addInferredAnnotations(innerType, aat.getComponentType(), atf);
+            }
+        }
     }
 
     /**
@@ -457,6 +626,13 @@ public class WholeProgramInferenceScenesStorage {
             ATypeElement typeToUpdate,
             int idx,
             TypeUseLocation defLoc) {
+        // The annotations inferred before this update.  If declared types are refined by inferred
+        // types, curATM has these annotations because they were inferred, not because they are
+        // defaults.
+        Set<Annotation> previouslyInferred =
+                useInferredTypes
+                        ? new HashSet<>(typeToUpdate.tlAnnotationsHere)
+                        : Collections.emptySet();
         // Clears only the annotations that are supported by atf.
         // The others stay intact.
         if (idx == 1) {
@@ -470,12 +646,22 @@ public class WholeProgramInferenceScenesStorage {
             // all annotations before inserting the new annotations.
             typeToUpdate.tlAnnotationsHere.removeAll(annosToRemove);
         }
+        // If declared types are refined by inferred types, an annotation that would not be written
+        // is not recorded for an element that has no inferred annotation, just as it would be lost
+        // if the file were written and read again between iterations. Otherwise, an annotation
+        // seen before the declared types it depends on were refined would be lubbed into every
+        // later update of the element.
+        boolean omitUnwritten =
+                useInferredTypes && getSupportedAnnosInSet(previouslyInferred, atf).isEmpty();
 
         // Only update the ATypeElement if there are no explicit annotations
         if (curATM.getExplicitAnnotations().isEmpty()) {
             for (AnnotationMirror am : newATM.getAnnotations()) {
-                addAnnotationsToATypeElement(
-                        newATM, typeToUpdate, defLoc, am, curATM.hasEffectiveAnnotation(am));
+                boolean isDefault = isDefaultAnnotation(curATM, am, previouslyInferred);
+                if (omitUnwritten && (isDefault || shouldIgnore(am, defLoc, newATM))) {
+                    continue;
+                }
+                addAnnotationsToATypeElement(newATM, typeToUpdate, defLoc, am, isDefault);
             }
         } else if (curATM.getKind() == TypeKind.TYPEVAR) {
             // getExplicitAnnotations will be non-empty for type vars whose bounds are explicitly
@@ -488,8 +674,11 @@ public class WholeProgramInferenceScenesStorage {
                     // in the same hierarchy.
                     break;
                 }
-                addAnnotationsToATypeElement(
-                        newATM, typeToUpdate, defLoc, am, curATM.hasEffectiveAnnotation(am));
+                boolean isDefault = isDefaultAnnotation(curATM, am, previouslyInferred);
+                if (omitUnwritten && (isDefault || shouldIgnore(am, defLoc, newATM))) {
+                    continue;
+                }
+                addAnnotationsToATypeElement(newATM, typeToUpdate, defLoc, am, isDefault);
             }
         }
 
@@ -510,6 +699,28 @@ public class WholeProgramInferenceScenesStorage {
         }
     }
 
+    /**
+     * Returns true if {@code curATM} has {@code am} without it having been inferred, which means
+     * that writing {@code am} would have no effect.
+     *
+     * @param curATM the declared type of an element
+     * @param am an annotation inferred for the element
+     * @param previouslyInferred the annotations inferred for the element before the current update,
+     *     if declared types are refined by inferred types; otherwise, the empty set
+     * @return true if {@code am} is on {@code curATM} but was not inferred
+     */
+    private boolean isDefaultAnnotation(
+            AnnotatedTypeMirror curATM, AnnotationMirror am, Set<Annotation> previouslyInferred) {
+        if (!curATM.hasEffectiveAnnotation(am)) {
+            return false;
+        }
+        if (previouslyInferred.isEmpty()) {
+            return true;
+        }
+        Annotation anno = AnnotationConverter.annotationMirrorToAnnotation(am);
+        return anno == null || !previouslyInferred.contains(anno);
+    }
+
     private void addAnnotationsToATypeElement(
             AnnotatedTypeMirror newATM,
             ATypeElement typeToUpdate,
@@ -529,7 +740,9 @@ public class WholeProgramInferenceScenesStorage {
                     annosIgnored = new HashSet<>();
                     annosToIgnore.put(key, annosIgnored);
                 }
-                annosIgnored.add(anno.def().toString());
+                if (annosIgnored.add(anno.def().toString())) {
+                    ignoredAnnotationCount++;
+                }
             }
         }
     }
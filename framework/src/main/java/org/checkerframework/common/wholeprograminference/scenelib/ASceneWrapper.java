@@ -4,6 +4,10 @@ import com.sun.tools.javac.code.Symbol.ClassSymbol;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -122,6 +126,24 @@ public class ASceneWrapper {
             AnnotationsInContexts annosToIgnore,
             OutputFormat outputFormat,
             BaseTypeChecker checker) {
+        writeToFile(jaifPath, annosToIgnore, outputFormat, checker.getClass().getCanonicalName());
+    }
+
+    /**
+     * Write the scene wrapped by this object to a file at the given path.
+     *
+     * @param jaifPath the path of the file to be written, but ending in ".jaif". If {@code
+     *     outputformat} is not {@code JAIF}, the path will be modified to match.
+     * @param annosToIgnore which annotations should be ignored in which contexts
+     * @param outputFormat the output format to use
+     * @param checkerName the canonical name of the class of the checker whose inferred annotations
+     *     are written, for naming stub files
+     */
+    public void writeToFile(
+            String jaifPath,
+            AnnotationsInContexts annosToIgnore,
+            OutputFormat outputFormat,
+            String checkerName) {
         assert jaifPath.endsWith(".jaif");
         AScene scene = theScene.clone();
         removeAnnosFromScene(scene, annosToIgnore);
@@ -132,38 +154,70 @@ public class ASceneWrapper {
                 filepath = jaifPath;
                 break;
             case STUB:
-                String astubWithChecker = "-" + checker.getClass().getCanonicalName() + ".astub";
+                String astubWithChecker = "-" + checkerName + ".astub";
                 filepath = jaifPath.replace(".jaif", astubWithChecker);
                 break;
             default:
                 throw new BugInCF("Unhandled outputFormat " + outputFormat);
         }
-        new File(filepath).delete();
-        if (!scene.isEmpty()) {
+        File file = new File(filepath);
+        if (scene.isEmpty()) {
             // Only write non-empty scenes into files.
-            try {
-                switch (outputFormat) {
-                    case STUB:
-                        SceneToStubWriter.write(this, filepath);
-                        break;
-                    case JAIF:
-                        IndexFileWriter.write(scene, new FileWriter(filepath));
-                        break;
-                    default:
-                        throw new BugInCF("Unhandled outputFormat " + outputFormat);
-                }
-            } catch (IOException e) {
-                throw new UserError("Problem while writing %s: %s", filepath, e.getMessage());
-            } catch (DefException e) {
-                throw new BugInCF(e);
+            file.delete();
+            return;
+        }
+        // Write to a temporary file and rename it, so that the file is never seen partly written.
+        File tempFile = new File(filepath + ".tmp");
+        try {
+            switch (outputFormat) {
+                case STUB:
+                    SceneToStubWriter.write(this, tempFile.getPath());
+                    break;
+                case JAIF:
+                    try (FileWriter writer = new FileWriter(tempFile)) {
+                        IndexFileWriter.write(scene, writer);
+                    }
+                    break;
+                default:
+                    throw new BugInCF("Unhandled outputFormat " + outputFormat);
+            }
+            if (tempFile.exists()) {
+                replaceFile(tempFile.toPath(), file.toPath());
+            } else {
+                file.delete();
             }
+        } catch (IOException e) {
+            throw new UserError("Problem while writing %s: %s", filepath, e.getMessage());
+        } catch (DefException e) {
+            throw new BugInCF(e);
+        }
+    }
+
+    /**
+     * Moves {@code source} to {@code target}, replacing {@code target}. The move is atomic if the
+     * file system supports it.
+     *
+     * @param source the file to move
+     * @param target the file to replace
+     * @throws IOException if the file cannot be moved
+     */
+    private static void replaceFile(Path source, Path target) throws IOException {
+        try {
+            Files.move(
+                    source,
+                    target,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
     /**
      * Updates the symbol information stored in AClass for the given class. May be called multiple
      * times (and needs to be if the second parameter was null the first time it was called; only
-     * some calls provide the symbol information).
+     * some calls provide the symbol information). A later call with a symbol from a later
+     * compilation of the same source replaces the type element of the earlier compilation.
      *
      * @param aClass the class representation in which the symbol information is to be updated
      * @param classSymbol the source of the symbol information; may be null, in which case this
@@ -190,8 +244,13 @@ public class ASceneWrapper {
                             "inconsistent enum constants in WPI for class "
                                     + classSymbol.getQualifiedName().toString());
                 }
+                // The existing constants may come from an earlier compilation of the same
+                // source, so compare them by name. Only their names are used when writing.
                 for (int i = 0; i < enumConstants.size(); i++) {
-                    if (!existingEnumConstants.get(i).equals(enumConstants.get(i))) {
+                    if (!existingEnumConstants
+                            .get(i)
+                            .getSimpleName()
+                            .contentEquals(enumConstants.get(i).getSimpleName())) {
                         throw new BugInCF(
                                 "inconsistent enum constants in WPI for class "
                                         + classSymbol.getQualifiedName().toString());
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Set;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
@@ -11,7 +12,11 @@ import javax.lang.model.util.Types;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.dataflow.analysis.ForwardAnalysisImpl;
+import org.checkerframework.dataflow.analysis.Store;
 import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.node.Node;
+import org.checkerframework.dataflow.livevariable.LiveLocalVariables;
 import org.checkerframework.framework.source.SourceChecker;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
@@ -22,6 +27,7 @@ import org.checkerframework.framework.type.TypeHierarchy;
 import org.checkerframework.framework.util.dependenttypes.DependentTypesHelper;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.Pair;
+import org.checkerframework.javacutil.UserError;
 
 /**
  * {@link CFAbstractAnalysis} is an extensible org.checkerframework.dataflow analysis for the
@@ -57,6 +63,18 @@ public abstract class CFAbstractAnalysis<
     /** A checker that contains command-line arguments and other information. */
     protected final SourceChecker checker;
 
+    /**
+     * Whether the "pruneDeadLocals" option was given: if so, values of local variables that are no
+     * longer live are removed from the stores at block boundaries.
+     */
+    protected final boolean pruneDeadLocals;
+
+    /**
+     * The live local variables of the control-flow graph being analyzed, or null if dead locals are
+     * not pruned or no analysis is running.
+     */
+    protected @Nullable LiveLocalVariables liveLocalVariables = null;
+
     /** Initial abstract types for fields. */
     protected final List<Pair<VariableElement, V>> fieldValues;
 
@@ -90,6 +108,20 @@ public abstract class CFAbstractAnalysis<
         this.transferFunction = createTransferFunction();
         // TODO: remove parameter and set to empty list.
         this.fieldValues = fieldValues;
+        this.pruneDeadLocals = checker.hasOption("pruneDeadLocals");
+        String iterationLimit = checker.getOption("flowIterationLimit");
+        if (iterationLimit != null) {
+            int limit;
+            try {
+                limit = Integer.parseInt(iterationLimit);
+            } catch (NumberFormatException ex) {
+                throw new UserError("flowIterationLimit was not an integer: " + iterationLimit);
+            }
+            if (limit < 0) {
+                throw new UserError("flowIterationLimit must be non-negative: " + iterationLimit);
+            }
+            setIterationLimit(limit);
+        }
     }
 
     protected CFAbstractAnalysis(
@@ -106,7 +138,32 @@ public abstract class CFAbstractAnalysis<
     public void performAnalysis(ControlFlowGraph cfg, List<Pair<VariableElement, V>> fieldValues) {
         this.fieldValues.clear();
         this.fieldValues.addAll(fieldValues);
-        super.performAnalysis(cfg);
+        liveLocalVariables = pruneDeadLocals ? new LiveLocalVariables(cfg) : null;
+        try {
+            super.performAnalysis(cfg);
+        } finally {
+            liveLocalVariables = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If the "pruneDeadLocals" option was given, first removes from {@code s} the values of the
+     * local variables that are not live at the entry of {@code b}. This makes the stores smaller
+     * and their comparisons and least upper bounds cheaper.
+     */
+    @Override
+    protected void addStoreBefore(
+            Block b, @Nullable Node node, S s, Store.Kind kind, boolean addBlockToWorklist) {
+        if (liveLocalVariables != null) {
+            Set<Element> live = liveLocalVariables.getLiveVariablesBefore(b);
+            if (s.hasDeadLocalVariables(live)) {
+                s = s.copy();
+                s.removeDeadLocalVariables(live);
+            }
+        }
+        super.addStoreBefore(b, node, s, kind, addBlockToWorklist);
     }
 
     public List<Pair<VariableElement, V>> getFieldValues() {
@@ -1,11 +1,12 @@
 package org.checkerframework.framework.flow;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Name;
 import javax.lang.model.type.TypeMirror;
@@ -28,6 +29,7 @@ import org.checkerframework.dataflow.cfg.node.MethodInvocationNode;
 import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.dataflow.cfg.node.ThisLiteralNode;
 import org.checkerframework.dataflow.qual.SideEffectFree;
+import org.checkerframework.dataflow.util.CopyOnWriteMap;
 import org.checkerframework.dataflow.util.PurityUtils;
 import org.checkerframework.framework.qual.MonotonicQualifier;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
@@ -99,24 +101,24 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
 
     protected CFAbstractStore(CFAbstractAnalysis<V, S, ?> analysis, boolean sequentialSemantics) {
         this.analysis = analysis;
-        localVariableValues = new HashMap<>();
+        localVariableValues = new CopyOnWriteMap<>();
         thisValue = null;
-        fieldValues = new HashMap<>();
-        methodValues = new HashMap<>();
-        arrayValues = new HashMap<>();
-        classValues = new HashMap<>();
+        fieldValues = new CopyOnWriteMap<>();
+        methodValues = new CopyOnWriteMap<>();
+        arrayValues = new CopyOnWriteMap<>();
+        classValues = new CopyOnWriteMap<>();
         this.sequentialSemantics = sequentialSemantics;
     }
 
     /** Copy constructor. */
     protected CFAbstractStore(CFAbstractStore<V, S> other) {
         this.analysis = other.analysis;
-        localVariableValues = new HashMap<>(other.localVariableValues);
+        localVariableValues = CopyOnWriteMap.copyOf(other.localVariableValues);
         thisValue = other.thisValue;
-        fieldValues = new HashMap<>(other.fieldValues);
-        methodValues = new HashMap<>(other.methodValues);
-        arrayValues = new HashMap<>(other.arrayValues);
-        classValues = new HashMap<>(other.classValues);
+        fieldValues = CopyOnWriteMap.copyOf(other.fieldValues);
+        methodValues = CopyOnWriteMap.copyOf(other.methodValues);
+        arrayValues = CopyOnWriteMap.copyOf(other.arrayValues);
+        classValues = CopyOnWriteMap.copyOf(other.classValues);
         sequentialSemantics = other.sequentialSemantics;
     }
 
@@ -188,7 +190,7 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
                 || analysis.checker.hasOption("assumePure")
                 || isSideEffectFree(atypeFactory, method))) {
             // update field values
-            Map<FlowExpressions.FieldAccess, V> newFieldValues = new HashMap<>();
+            Map<FlowExpressions.FieldAccess, V> newFieldValues = new CopyOnWriteMap<>();
             for (Map.Entry<FlowExpressions.FieldAccess, V> e : fieldValues.entrySet()) {
                 FlowExpressions.FieldAccess fieldAccess = e.getKey();
                 V otherVal = e.getValue();
@@ -496,6 +498,48 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
         }
     }
 
+    /**
+     * Returns true if this store has a value for a local variable that is neither in {@code
+     * liveVariables} nor a formal parameter.
+     *
+     * @param liveVariables the local variables that are live at the current program point
+     * @return true if {@link #removeDeadLocalVariables} would remove a value from this store
+     */
+    public boolean hasDeadLocalVariables(Set<? extends Element> liveVariables) {
+        for (FlowExpressions.LocalVariable localVar : localVariableValues.keySet()) {
+            if (isDeadLocalVariable(localVar, liveVariables)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the values of the local variables that are neither in {@code liveVariables} nor
+     * formal parameters. Formal parameters are kept, because the postconditions checked at the exit
+     * of a method may refer to them.
+     *
+     * @param liveVariables the local variables that are live at the current program point
+     */
+    public void removeDeadLocalVariables(Set<? extends Element> liveVariables) {
+        localVariableValues
+                .keySet()
+                .removeIf(localVar -> isDeadLocalVariable(localVar, liveVariables));
+    }
+
+    /**
+     * Returns true if {@code localVar} is neither in {@code liveVariables} nor a formal parameter.
+     *
+     * @param localVar a local variable
+     * @param liveVariables the local variables that are live at the current program point
+     * @return true if the value of {@code localVar} is no longer needed
+     */
+    private static boolean isDeadLocalVariable(
+            FlowExpressions.LocalVariable localVar, Set<? extends Element> liveVariables) {
+        Element element = localVar.getElement();
+        return element.getKind() != ElementKind.PARAMETER && !liveVariables.contains(element);
+    }
+
     /**
      * Returns current abstract value of a flow expression, or {@code null} if no information is
      * available.
@@ -957,37 +1001,29 @@ public abstract class CFAbstractStore<V extends CFAbstractValue<V>, S extends CF
      * equals predicate.
      */
     protected boolean supersetOf(CFAbstractStore<V, S> other) {
-        for (Map.Entry<FlowExpressions.LocalVariable, V> e : other.localVariableValues.entrySet()) {
-            FlowExpressions.LocalVariable key = e.getKey();
-            V value = localVariableValues.get(key);
-            if (value == null || !value.equals(e.getValue())) {
-                return false;
-            }
-        }
-        for (Map.Entry<FlowExpressions.FieldAccess, V> e : other.fieldValues.entrySet()) {
-            FlowExpressions.FieldAccess key = e.getKey();
-            V value = fieldValues.get(key);
-            if (value == null || !value.equals(e.getValue())) {
-                return false;
-            }
-        }
-        for (Map.Entry<FlowExpressions.ArrayAccess, V> e : other.arrayValues.entrySet()) {
-            FlowExpressions.ArrayAccess key = e.getKey();
-            V value = arrayValues.get(key);
-            if (value == null || !value.equals(e.getValue())) {
-                return false;
-            }
-        }
-        for (Map.Entry<MethodCall, V> e : other.methodValues.entrySet()) {
-            FlowExpressions.MethodCall key = e.getKey();
-            V value = methodValues.get(key);
-            if (value == null || !value.equals(e.getValue())) {
-                return false;
-            }
+        return supersetOf(localVariableValues, other.localVariableValues)
+                && supersetOf(fieldValues, other.fieldValues)
+                && supersetOf(arrayValues, other.arrayValues)
+                && supersetOf(methodValues, other.methodValues)
+                && supersetOf(classValues, other.classValues);
+    }
+
+    /**
+     * Returns true if {@code map} contains every entry of {@code otherMap}. Takes constant time if
+     * the two maps are copies of one another that have not been modified since they were copied.
+     *
+     * @param <K> the type of keys
+     * @param map a map from this store
+     * @param otherMap the corresponding map from another store
+     * @return true if {@code map} contains every entry of {@code otherMap}
+     */
+    private <K> boolean supersetOf(Map<K, V> map, Map<K, V> otherMap) {
+        if (map instanceof CopyOnWriteMap
+                && ((CopyOnWriteMap<K, V>) map).sharesStorageWith(otherMap)) {
+            return true;
         }
-        for (Map.Entry<FlowExpressions.ClassName, V> e : other.classValues.entrySet()) {
-            FlowExpressions.ClassName key = e.getKey();
-            V value = classValues.get(key);
+        for (Map.Entry<K, V> e : otherMap.entrySet()) {
+            V value = map.get(e.getKey());
             if (value == null || !value.equals(e.getValue())) {
                 return false;
             }
@@ -9,6 +9,8 @@ import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.VariableElement;
@@ -48,18 +50,34 @@ public class CFCFGBuilder extends CFGBuilder {
                     "Assertions cannot be assumed to be enabled and disabled at the same time.");
         }
 
+        CFGCache cache = checker.getCFGCache();
+        if (cache != null) {
+            ControlFlowGraph cfg = cache.get(root, underlyingAST, factory);
+            if (cfg != null) {
+                return cfg;
+            }
+        }
+
         CFTreeBuilder builder = new CFTreeBuilder(env);
-        PhaseOneResult phase1result =
+        CFCFGTranslationPhaseOne phase1 =
                 new CFCFGTranslationPhaseOne(
-                                builder,
-                                checker,
-                                factory,
-                                assumeAssertionsEnabled,
-                                assumeAssertionsDisabled,
-                                env)
-                        .process(root, underlyingAST);
+                        builder,
+                        checker,
+                        factory,
+                        assumeAssertionsEnabled,
+                        assumeAssertionsDisabled,
+                        env);
+        PhaseOneResult phase1result = phase1.process(root, underlyingAST);
         ControlFlowGraph phase2result = CFGTranslationPhaseTwo.process(phase1result);
         ControlFlowGraph phase3result = CFGTranslationPhaseThree.process(phase2result);
+        if (cache != null && !phase1.isCheckerSpecific) {
+            cache.put(
+                    root,
+                    underlyingAST,
+                    phase3result,
+                    phase1.artificialTrees,
+                    phase1.terminatingMethods);
+        }
         return phase3result;
     }
 
@@ -91,6 +109,22 @@ public class CFCFGBuilder extends CFGBuilder {
         /** Type factory to provide types used during CFG building. */
         protected final AnnotatedTypeFactory factory;
 
+        /**
+         * True if the control-flow graph depends on {@link #checker} or {@link #factory}, and so
+         * may not be shared with the other checkers of a compound checker; see {@link CFGCache}.
+         */
+        protected boolean isCheckerSpecific = false;
+
+        /** Map from each artificial tree created so far to its enclosing method or class. */
+        protected final Map<Tree, Element> artificialTrees = new HashMap<>();
+
+        /**
+         * Map from each invoked method to whether {@link #factory} considers that it terminates
+         * execution. The answer may come from the factory's stub files, so another checker may
+         * disagree; see {@link CFGCache#get}.
+         */
+        protected final Map<Element, Boolean> terminatingMethods = new HashMap<>();
+
         public CFCFGTranslationPhaseOne(
                 CFTreeBuilder builder,
                 BaseTypeChecker checker,
@@ -105,12 +139,23 @@ public class CFCFGBuilder extends CFGBuilder {
 
         @Override
         protected boolean assumeAssertionsEnabledFor(AssertTree tree) {
+            ExpressionTree detail = tree.getDetail();
+            if (detail != null && detail.toString().contains("@AssumeAssertion(")) {
+                // Whether the assertion is assumed depends on the checker's warning prefixes.
+                isCheckerSpecific = true;
+            }
             if (assumeAssertionsActivatedForAssertTree(checker, tree)) {
                 return true;
             }
             return super.assumeAssertionsEnabledFor(tree);
         }
 
+        @Override
+        protected boolean terminatesExecution(Element methodElement) {
+            return terminatingMethods.computeIfAbsent(
+                    methodElement, super::terminatesExecution);
+        }
+
         @Override
         public void handleArtificialTree(Tree tree) {
             // Record the method or class that encloses the newly created tree.
@@ -118,11 +163,13 @@ public class CFCFGBuilder extends CFGBuilder {
             if (enclosingMethod != null) {
                 Element methodElement = TreeUtils.elementFromDeclaration(enclosingMethod);
                 factory.setEnclosingElementForArtificialTree(tree, methodElement);
+                artificialTrees.put(tree, methodElement);
             } else {
                 ClassTree enclosingClass = TreeUtils.enclosingClass(getCurrentPath());
                 if (enclosingClass != null) {
                     Element classElement = TreeUtils.elementFromDeclaration(enclosingClass);
                     factory.setEnclosingElementForArtificialTree(tree, classElement);
+                    artificialTrees.put(tree, classElement);
                 }
             }
         }
@@ -130,6 +177,8 @@ public class CFCFGBuilder extends CFGBuilder {
         @Override
         protected VariableTree createEnhancedForLoopIteratorVariable(
                 MethodInvocationTree iteratorCall, VariableElement variableElement) {
+            // The type of the new variable is computed by the factory.
+            isCheckerSpecific = true;
             // We do not want to cache flow-insensitive types
             // retrieved during CFG building.
             boolean oldShouldCache = factory.shouldCache;
@@ -154,6 +203,8 @@ public class CFCFGBuilder extends CFGBuilder {
         @Override
         protected VariableTree createEnhancedForLoopArrayVariable(
                 ExpressionTree expression, VariableElement variableElement) {
+            // The type of the new variable is computed by the factory.
+            isCheckerSpecific = true;
             // We do not want to cache flow-insensitive types
             // retrieved during CFG building.
             boolean oldShouldCache = factory.shouldCache;
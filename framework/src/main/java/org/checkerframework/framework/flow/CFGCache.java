@@ -0,0 +1,156 @@
+package org.checkerframework.framework.flow;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import java.util.HashMap;
+import java.util.Map;
+import javax.lang.model.element.Element;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.qual.TerminatesExecution;
+import org.checkerframework.framework.type.AnnotatedTypeFactory;
+
+/**
+ * Control-flow graphs shared by the checkers of a compound checker, such as the Index Checker and
+ * its subcheckers.
+ *
+ * <p>Every checker of a compound checker performs dataflow analysis on the same method bodies, and
+ * most control-flow graphs do not depend on the checker that builds them. {@link CFCFGBuilder}
+ * stores such graphs here, and the other checkers reuse them instead of translating the same code
+ * again. A graph is immutable once built; all analysis-specific state is kept by the analysis, in
+ * maps keyed by the graph's nodes. Graphs that consulted the checker or its type factory while
+ * they were built, for example to give a type to the iterator variable of an enhanced for loop,
+ * are never stored. Whether an invoked method terminates execution may depend on the stub files of
+ * the checker, so a graph records the answers that its builder got, and it is shared only with the
+ * checkers that give the same answers.
+ *
+ * <p>The cache holds the graphs of a single compilation unit and is emptied when a graph of
+ * another compilation unit is requested.
+ */
+public final class CFGCache {
+
+    /** A shared control-flow graph, with the artificial trees that were created to build it. */
+    private static final class Entry {
+        /** The control-flow graph. */
+        final ControlFlowGraph cfg;
+
+        /** Map from each artificial tree in {@link #cfg} to its enclosing method or class. */
+        final Map<Tree, Element> artificialTrees;
+
+        /**
+         * Map from each method invoked in {@link #cfg} to whether the checker that built it
+         * considered that the method terminates execution.
+         */
+        final Map<Element, Boolean> terminatingMethods;
+
+        /**
+         * Creates an Entry.
+         *
+         * @param cfg the control-flow graph
+         * @param artificialTrees the artificial trees in {@code cfg} and their enclosing elements
+         * @param terminatingMethods the methods invoked in {@code cfg}, and whether they terminate
+         *     execution
+         */
+        Entry(
+                ControlFlowGraph cfg,
+                Map<Tree, Element> artificialTrees,
+                Map<Element, Boolean> terminatingMethods) {
+            this.cfg = cfg;
+            this.artificialTrees = artificialTrees;
+            this.terminatingMethods = terminatingMethods;
+        }
+    }
+
+    /** The compilation unit whose graphs are in {@link #entries}. */
+    private @Nullable CompilationUnitTree root = null;
+
+    /** Map from the code of an {@link UnderlyingAST} to its control-flow graph. */
+    private final Map<Tree, Entry> entries = new HashMap<>();
+
+    /** The number of requests that were answered with a shared graph. */
+    private int hits = 0;
+
+    /** The number of requests that required building a graph. */
+    private int misses = 0;
+
+    /**
+     * Returns the shared control-flow graph of {@code underlyingAST}, or null if there is none or
+     * if {@code factory} disagrees with the checker that built it about which of the invoked
+     * methods terminate execution. The artificial trees of the graph are registered with {@code
+     * factory}, just as if {@code factory} had built the graph.
+     *
+     * @param root the compilation unit that contains {@code underlyingAST}
+     * @param underlyingAST the code whose control-flow graph to return
+     * @param factory the type factory that will use the graph
+     * @return the shared control-flow graph of {@code underlyingAST}, or null
+     */
+    public @Nullable ControlFlowGraph get(
+            CompilationUnitTree root, UnderlyingAST underlyingAST, AnnotatedTypeFactory factory) {
+        Entry entry = root == this.root ? entries.get(underlyingAST.getCode()) : null;
+        if (entry == null || !sameTerminatingMethods(entry, factory)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        for (Map.Entry<Tree, Element> artificialTree : entry.artificialTrees.entrySet()) {
+            factory.setEnclosingElementForArtificialTree(
+                    artificialTree.getKey(), artificialTree.getValue());
+        }
+        return entry.cfg;
+    }
+
+    /**
+     * Returns true if {@code factory} agrees with the checker that built the graph of {@code entry}
+     * about which of the methods invoked in it terminate execution.
+     *
+     * @param entry a shared control-flow graph
+     * @param factory the type factory that would use the graph
+     * @return true if the graph of {@code entry} is the one that {@code factory} would build
+     */
+    private static boolean sameTerminatingMethods(Entry entry, AnnotatedTypeFactory factory) {
+        for (Map.Entry<Element, Boolean> method : entry.terminatingMethods.entrySet()) {
+            boolean terminates =
+                    factory.getDeclAnnotation(method.getKey(), TerminatesExecution.class) != null;
+            if (terminates != method.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Shares {@code cfg}, which must depend on the checker that built it only through the methods
+     * that terminate execution, with the other checkers.
+     *
+     * @param root the compilation unit that contains {@code underlyingAST}
+     * @param underlyingAST the code whose control-flow graph is {@code cfg}
+     * @param cfg the control-flow graph of {@code underlyingAST}
+     * @param artificialTrees map from each artificial tree in {@code cfg} to its enclosing method
+     *     or class
+     * @param terminatingMethods map from each method invoked in {@code cfg} to whether the checker
+     *     that built it considered that the method terminates execution
+     */
+    public void put(
+            CompilationUnitTree root,
+            UnderlyingAST underlyingAST,
+            ControlFlowGraph cfg,
+            Map<Tree, Element> artificialTrees,
+            Map<Element, Boolean> terminatingMethods) {
+        if (root != this.root) {
+            entries.clear();
+            this.root = root;
+        }
+        entries.put(
+                underlyingAST.getCode(), new Entry(cfg, artificialTrees, terminatingMethods));
+    }
+
+    /**
+     * Returns a one-line summary of how effective the cache has been, for debugging output.
+     *
+     * @return a summary of the cache hits and misses so far
+     */
+    public String statistics() {
+        return String.format("shared control-flow graphs: %d hits, %d misses", hits, misses);
+    }
+}
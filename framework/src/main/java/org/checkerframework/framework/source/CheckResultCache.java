@@ -0,0 +1,698 @@
+package org.checkerframework.framework.source;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeInfo;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.ElementUtils;
+
+/**
+ * A persistent cache of the diagnostics that a checker issued for a top-level class. It is used
+ * when the {@code -AresultCache=<dir>} command-line option is given.
+ *
+ * <p>Each top-level class is identified by a <em>fingerprint</em>, a hash of everything that the
+ * result of type-checking the class can depend on:
+ *
+ * <ul>
+ *   <li>the checker class and the location and timestamp of the jar files that contain the checker
+ *       and the framework, or the contents of the class directories that contain them; these cover
+ *       the built-in stub files;
+ *   <li>the checker's options and the Java source level;
+ *   <li>the contents of the stub files given by the {@code -Astubs} command-line option;
+ *   <li>the contents of the compilation unit that contains the class, and the annotations of its
+ *       package; and
+ *   <li>the signatures and annotations of every class that the class refers to, of their
+ *       supertypes, and the annotations of their packages.
+ * </ul>
+ *
+ * If a class's fingerprint is in the cache, the checker prints the cached diagnostics instead of
+ * type-checking the class. Otherwise, the checker records the diagnostics that it issues for the
+ * class and stores them under the fingerprint. A result is only stored if every error and warning
+ * that javac logged while checking the class went through {@link
+ * SourceChecker#printOrStoreMessage(javax.tools.Diagnostic.Kind, String, Tree, CompilationUnitTree,
+ * StackTraceElement[])}; for example, the result is not stored if the checker crashed.
+ *
+ * <p>Method bodies of other classes do not affect the fingerprint, because a checker only uses the
+ * declarations of the classes that it is not currently checking. Whole-program inference modifies
+ * files as a side effect of checking, so the cache is not used together with {@code -Ainfer}.
+ */
+final class CheckResultCache {
+
+    /** The version of the format of cache files; part of every fingerprint. */
+    private static final int FORMAT_VERSION = 1;
+
+    /** The directory in which cache entries are stored. */
+    private final Path directory;
+
+    /** The checker whose results are cached. */
+    private final SourceChecker checker;
+
+    /** The element utilities. */
+    private final Elements elements;
+
+    /**
+     * The digest of everything that is the same for every class in this compilation. Computed
+     * lazily because the checker's options are not final until initialization is complete.
+     */
+    private @Nullable String compilationDigest = null;
+
+    /** Map from a class to the digest of its signature. */
+    private final Map<TypeElement, String> signatureDigests = new HashMap<>();
+
+    /** The number of classes whose diagnostics were printed from the cache. */
+    private int hits = 0;
+
+    /** The number of classes that were type-checked because they were not in the cache. */
+    private int misses = 0;
+
+    /**
+     * Creates a cache that stores its entries in {@code directory}.
+     *
+     * @param checker the checker whose results are cached
+     * @param directory the directory in which cache entries are stored; created if necessary
+     */
+    CheckResultCache(SourceChecker checker, String directory) {
+        this.checker = checker;
+        this.directory = Paths.get(directory);
+        this.elements = checker.getProcessingEnvironment().getElementUtils();
+    }
+
+    /** A diagnostic message, together with the position of the tree that it was issued for. */
+    static final class CachedDiagnostic {
+        /** The kind of the message. */
+        final Diagnostic.Kind kind;
+        /** The message text. */
+        final String message;
+        /** The start position of the tree. */
+        final long start;
+        /** The end position of the tree. */
+        final long end;
+        /** The kind of the tree. */
+        final Tree.Kind treeKind;
+
+        /**
+         * Creates a new CachedDiagnostic.
+         *
+         * @param kind the kind of the message
+         * @param message the message text
+         * @param start the start position of the tree
+         * @param end the end position of the tree
+         * @param treeKind the kind of the tree
+         */
+        CachedDiagnostic(
+                Diagnostic.Kind kind, String message, long start, long end, Tree.Kind treeKind) {
+            this.kind = kind;
+            this.message = message;
+            this.start = start;
+            this.end = end;
+            this.treeKind = treeKind;
+        }
+
+        /**
+         * Creates a new CachedDiagnostic for a message about {@code source}.
+         *
+         * @param kind the kind of the message
+         * @param message the message text
+         * @param source the tree the message is about
+         * @param root the compilation unit that contains {@code source}
+         * @param positions the source positions
+         */
+        CachedDiagnostic(
+                Diagnostic.Kind kind,
+                String message,
+                Tree source,
+                CompilationUnitTree root,
+                SourcePositions positions) {
+            this(
+                    kind,
+                    message,
+                    positions.getStartPosition(root, source),
+                    positions.getEndPosition(root, source),
+                    source.getKind());
+        }
+    }
+
+    /**
+     * Returns the fingerprint of the given top-level class, or null if the class cannot be
+     * fingerprinted (for example, because its source file cannot be read).
+     *
+     * @param element a top-level class
+     * @param path the path to the class declaration
+     * @return the fingerprint of the class, or null
+     */
+    @Nullable String fingerprint(TypeElement element, TreePath path) {
+        CharSequence source;
+        try {
+            source = path.getCompilationUnit().getSourceFile().getCharContent(true);
+        } catch (IOException e) {
+            return null;
+        }
+        MessageDigest md = newDigest();
+        update(md, getCompilationDigest());
+        update(md, element.getQualifiedName().toString());
+        update(md, source.toString());
+        // The package annotations, such as @DefaultQualifier, are written in package-info.java,
+        // which is not part of the source of the class.
+        PackageElement pkg = elements.getPackageOf(element);
+        update(md, pkg.getQualifiedName().toString());
+        updateWithAnnotations(md, pkg);
+        for (TypeElement dependency : getDependencies(element, path)) {
+            update(md, dependency.getQualifiedName().toString());
+            update(md, getSignatureDigest(dependency));
+        }
+        return toHex(md.digest());
+    }
+
+    /**
+     * Returns the diagnostics stored under the given fingerprint, or null if there are none. This
+     * counts as a cache miss if the result is null; otherwise {@link #findTrees} counts the hit or
+     * miss.
+     *
+     * @param fingerprint a fingerprint computed by {@link #fingerprint}
+     * @return the cached diagnostics, or null
+     */
+    @Nullable List<CachedDiagnostic> lookup(String fingerprint) {
+        Path file = directory.resolve(fingerprint);
+        if (!Files.isRegularFile(file)) {
+            misses++;
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(file);
+                DataInputStream data = new DataInputStream(in)) {
+            int size = data.readInt();
+            List<CachedDiagnostic> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Diagnostic.Kind kind = Diagnostic.Kind.valueOf(data.readUTF());
+                Tree.Kind treeKind = Tree.Kind.valueOf(data.readUTF());
+                long start = data.readLong();
+                long end = data.readLong();
+                byte[] message = new byte[data.readInt()];
+                data.readFully(message);
+                result.add(
+                        new CachedDiagnostic(
+                                kind,
+                                new String(message, StandardCharsets.UTF_8),
+                                start,
+                                end,
+                                treeKind));
+            }
+            return result;
+        } catch (IOException | IllegalArgumentException e) {
+            // A corrupt or truncated entry is treated as a miss, and will be overwritten.
+            misses++;
+            return null;
+        }
+    }
+
+    /**
+     * Stores the diagnostics for the class with the given fingerprint. Failure to write the cache
+     * entry is not an error: the class is simply checked again next time.
+     *
+     * @param fingerprint a fingerprint computed by {@link #fingerprint}
+     * @param diagnostics the diagnostics that the checker issued for the class
+     */
+    void store(String fingerprint, List<CachedDiagnostic> diagnostics) {
+        try {
+            Files.createDirectories(directory);
+            // Write to a temporary file and rename it, so that a concurrent compilation never
+            // reads a partially-written entry.
+            Path tmp = Files.createTempFile(directory, fingerprint, ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp);
+                    DataOutputStream data = new DataOutputStream(out)) {
+                data.writeInt(diagnostics.size());
+                for (CachedDiagnostic d : diagnostics) {
+                    data.writeUTF(d.kind.name());
+                    data.writeUTF(d.treeKind.name());
+                    data.writeLong(d.start);
+                    data.writeLong(d.end);
+                    byte[] message = d.message.getBytes(StandardCharsets.UTF_8);
+                    data.writeInt(message.length);
+                    data.write(message);
+                }
+            }
+            Files.move(
+                    tmp,
+                    directory.resolve(fingerprint),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Nothing to do; see the Javadoc.
+        }
+    }
+
+    /**
+     * Finds the trees that the given diagnostics were issued for. Returns null if some tree cannot
+     * be found, in which case the class must be checked again. This counts as a cache hit if the
+     * result is non-null and as a miss otherwise.
+     *
+     * @param diagnostics diagnostics returned by {@link #lookup}
+     * @param root the compilation unit that the diagnostics are about
+     * @param trees the Trees instance
+     * @return the tree for each diagnostic, in the same order, or null
+     */
+    @Nullable List<Tree> findTrees(
+            List<CachedDiagnostic> diagnostics, CompilationUnitTree root, Trees trees) {
+        List<Tree> result = locateTrees(diagnostics, root, trees);
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the result of {@link #findTrees}, without counting a hit or miss.
+     *
+     * @param diagnostics diagnostics returned by {@link #lookup}
+     * @param root the compilation unit that the diagnostics are about
+     * @param trees the Trees instance
+     * @return the tree for each diagnostic, in the same order, or null
+     */
+    private @Nullable List<Tree> locateTrees(
+            List<CachedDiagnostic> diagnostics, CompilationUnitTree root, Trees trees) {
+        if (diagnostics.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, List<CachedDiagnostic>> wanted = new HashMap<>();
+        for (CachedDiagnostic d : diagnostics) {
+            wanted.computeIfAbsent(positionKey(d.start, d.end, d.treeKind), k -> new ArrayList<>())
+                    .add(d);
+        }
+        SourcePositions positions = trees.getSourcePositions();
+        Map<String, Tree> found = new HashMap<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void scan(Tree tree, Void p) {
+                if (tree != null) {
+                    String key =
+                            positionKey(
+                                    positions.getStartPosition(root, tree),
+                                    positions.getEndPosition(root, tree),
+                                    tree.getKind());
+                    if (wanted.containsKey(key)) {
+                        found.putIfAbsent(key, tree);
+                    }
+                }
+                return super.scan(tree, p);
+            }
+        }.scan(root, null);
+
+        List<Tree> result = new ArrayList<>(diagnostics.size());
+        for (CachedDiagnostic d : diagnostics) {
+            Tree tree = found.get(positionKey(d.start, d.end, d.treeKind));
+            if (tree == null) {
+                return null;
+            }
+            result.add(tree);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a one-line summary of how effective the cache has been, for the {@code
+     * -AresourceStats} output.
+     *
+     * @return a summary of the cache hits and misses so far
+     */
+    String statistics() {
+        return String.format(
+                "result cache: %d classes replayed, %d classes checked", hits, misses);
+    }
+
+    /**
+     * Returns a string that identifies a tree by its position and kind.
+     *
+     * @param start the start position of the tree
+     * @param end the end position of the tree
+     * @param kind the kind of the tree
+     * @return a string that identifies the tree
+     */
+    private static String positionKey(long start, long end, Tree.Kind kind) {
+        return start + ":" + end + ":" + kind;
+    }
+
+    /**
+     * Returns the digest of everything that is the same for every class in this compilation.
+     *
+     * @return the digest of everything that is the same for every class in this compilation
+     */
+    private String getCompilationDigest() {
+        if (compilationDigest == null) {
+            MessageDigest md = newDigest();
+            update(md, Integer.toString(FORMAT_VERSION));
+            update(md, checker.getClass().getName());
+            updateWithCodeLocation(md, checker.getClass());
+            updateWithCodeLocation(md, SourceChecker.class);
+            update(md, checker.getProcessingEnvironment().getSourceVersion().toString());
+            // Sort the options, because the order of a HashMap is not deterministic.
+            for (Map.Entry<String, String> option :
+                    new TreeMap<>(checker.getOptions()).entrySet()) {
+                update(md, option.getKey());
+                update(md, String.valueOf(option.getValue()));
+            }
+            String stubs = checker.getOption("stubs");
+            if (stubs != null) {
+                for (String stub : stubs.split(File.pathSeparator)) {
+                    updateWithFileContents(md, Paths.get(stub));
+                }
+            }
+            compilationDigest = toHex(md.digest());
+        }
+        return compilationDigest;
+    }
+
+    /**
+     * Adds the location of the jar file or directory that contains the given class to the digest,
+     * so that the digest changes whenever the code of the class is rebuilt. For a jar file, adds
+     * its last-modified time. For a directory, whose last-modified time does not change when a
+     * class file in a subdirectory changes, adds the contents of all files under it.
+     *
+     * @param md the digest to update
+     * @param clazz a class
+     */
+    private static void updateWithCodeLocation(MessageDigest md, Class<?> clazz) {
+        CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return;
+        }
+        URL location = codeSource.getLocation();
+        update(md, location.toString());
+        File file;
+        try {
+            file = new File(location.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return;
+        }
+        if (file.isDirectory()) {
+            updateWithFileContents(md, file.toPath());
+        } else {
+            update(md, Long.toString(file.lastModified()));
+        }
+    }
+
+    /**
+     * Adds the contents of the given file to the digest. If the path is a directory, adds the
+     * contents of all files under it, in a deterministic order.
+     *
+     * @param md the digest to update
+     * @param path a file or directory
+     */
+    private static void updateWithFileContents(MessageDigest md, Path path) {
+        update(md, path.toString());
+        if (Files.isDirectory(path)) {
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(path)) {
+                files =
+                        stream.filter(Files::isRegularFile)
+                                .sorted()
+                                .collect(Collectors.toList());
+            } catch (IOException e) {
+                return;
+            }
+            for (Path file : files) {
+                updateWithFileContents(md, file);
+            }
+        } else if (Files.isRegularFile(path)) {
+            try {
+                md.update(Files.readAllBytes(path));
+            } catch (IOException e) {
+                // The stub parser reports unreadable stub files.
+            }
+        }
+    }
+
+    /**
+     * Returns the top-level classes that the given class refers to, their supertypes, and the
+     * supertypes of the given class, sorted by name. The given class itself is not included,
+     * because its source code is part of the fingerprint.
+     *
+     * @param element a top-level class
+     * @param path the path to the declaration of {@code element}
+     * @return the top-level classes that {@code element} depends on
+     */
+    private Set<TypeElement> getDependencies(TypeElement element, TreePath path) {
+        Set<TypeElement> referenced = new HashSet<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void scan(Tree tree, Void p) {
+                if (tree instanceof JCTree) {
+                    addTopLevelClass(referenced, TreeInfo.symbol((JCTree) tree));
+                    Type type = ((JCTree) tree).type;
+                    if (type != null) {
+                        addTopLevelClass(referenced, type.tsym);
+                    }
+                }
+                return super.scan(tree, p);
+            }
+        }.scan(path.getLeaf(), null);
+        addTopLevelClass(referenced, element);
+
+        // Add supertypes, transitively, because their members are inherited.
+        ArrayDeque<TypeElement> worklist = new ArrayDeque<>(referenced);
+        while (!worklist.isEmpty()) {
+            TypeElement current = worklist.remove();
+            for (TypeElement nested : enclosedTypes(current)) {
+                List<TypeMirror> supertypes = new ArrayList<>(nested.getInterfaces());
+                supertypes.add(nested.getSuperclass());
+                for (TypeMirror supertype : supertypes) {
+                    if (supertype.getKind() == TypeKind.DECLARED) {
+                        Element superElement = ((DeclaredType) supertype).asElement();
+                        TypeElement topLevel = topLevelClass(superElement);
+                        if (topLevel != null && referenced.add(topLevel)) {
+                            worklist.add(topLevel);
+                        }
+                    }
+                }
+            }
+        }
+
+        referenced.remove(element);
+        Set<TypeElement> result =
+                new TreeSet<>(
+                        (a, b) ->
+                                a.getQualifiedName()
+                                        .toString()
+                                        .compareTo(b.getQualifiedName().toString()));
+        result.addAll(referenced);
+        return result;
+    }
+
+    /**
+     * Adds the top-level class that contains {@code element}, if any, to {@code classes}.
+     *
+     * @param classes the set to add to
+     * @param element an element, or null
+     */
+    private static void addTopLevelClass(Set<TypeElement> classes, @Nullable Element element) {
+        TypeElement topLevel = topLevelClass(element);
+        if (topLevel != null) {
+            classes.add(topLevel);
+        }
+    }
+
+    /**
+     * Returns the top-level class that contains {@code element}, or null if there is none (for
+     * example, if {@code element} is a package or a type variable of a generic method).
+     *
+     * @param element an element, or null
+     * @return the top-level class that contains {@code element}, or null
+     */
+    private static @Nullable TypeElement topLevelClass(@Nullable Element element) {
+        if (element == null || element instanceof PackageElement) {
+            return null;
+        }
+        TypeElement result = ElementUtils.enclosingClass(element);
+        while (result != null) {
+            Element enclosing = result.getEnclosingElement();
+            if (enclosing == null || enclosing instanceof PackageElement) {
+                return result;
+            }
+            result = ElementUtils.enclosingClass(enclosing);
+        }
+        return null;
+    }
+
+    /**
+     * Returns {@code type} and all the classes nested in it, transitively.
+     *
+     * @param type a class
+     * @return {@code type} and all the classes nested in it
+     */
+    private static List<TypeElement> enclosedTypes(TypeElement type) {
+        List<TypeElement> result = new ArrayList<>();
+        ArrayDeque<TypeElement> worklist = new ArrayDeque<>();
+        worklist.add(type);
+        while (!worklist.isEmpty()) {
+            TypeElement current = worklist.remove();
+            result.add(current);
+            for (Element member : current.getEnclosedElements()) {
+                if (member instanceof TypeElement) {
+                    worklist.add((TypeElement) member);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the digest of the signature of a top-level class: the declarations and annotations
+     * of the class, of all its members, of all its nested classes, and of its package.
+     *
+     * @param type a top-level class
+     * @return the digest of the signature of {@code type}
+     */
+    private String getSignatureDigest(TypeElement type) {
+        String result = signatureDigests.get(type);
+        if (result == null) {
+            MessageDigest md = newDigest();
+            PackageElement pkg = elements.getPackageOf(type);
+            update(md, pkg.getQualifiedName().toString());
+            updateWithAnnotations(md, pkg);
+            for (TypeElement nested : enclosedTypes(type)) {
+                updateWithDeclaration(md, nested);
+                update(md, nested.getSuperclass().toString());
+                update(md, nested.getInterfaces().toString());
+                for (TypeParameterElement typeParameter : nested.getTypeParameters()) {
+                    updateWithDeclaration(md, typeParameter);
+                    update(md, typeParameter.getBounds().toString());
+                }
+                for (Element member : nested.getEnclosedElements()) {
+                    if (member instanceof TypeElement) {
+                        continue; // handled by the enclosing loop
+                    }
+                    updateWithDeclaration(md, member);
+                    if (member instanceof ExecutableElement) {
+                        ExecutableElement method = (ExecutableElement) member;
+                        for (VariableElement parameter : method.getParameters()) {
+                            updateWithDeclaration(md, parameter);
+                        }
+                        for (TypeParameterElement typeParameter : method.getTypeParameters()) {
+                            updateWithDeclaration(md, typeParameter);
+                            update(md, typeParameter.getBounds().toString());
+                        }
+                        update(md, String.valueOf(method.getDefaultValue()));
+                    } else if (member instanceof VariableElement) {
+                        update(md, String.valueOf(((VariableElement) member).getConstantValue()));
+                    }
+                }
+            }
+            result = toHex(md.digest());
+            signatureDigests.put(type, result);
+        }
+        return result;
+    }
+
+    /**
+     * Adds the kind, name, modifiers, type, and declaration annotations of an element to the
+     * digest. The type includes its type annotations.
+     *
+     * @param md the digest to update
+     * @param element the element
+     */
+    private static void updateWithDeclaration(MessageDigest md, Element element) {
+        update(md, element.getKind().name());
+        update(md, element.getSimpleName().toString());
+        update(md, element.getModifiers().toString());
+        update(md, element.asType().toString());
+        updateWithAnnotations(md, element);
+    }
+
+    /**
+     * Adds the declaration annotations of an element to the digest.
+     *
+     * @param md the digest to update
+     * @param element the element
+     */
+    private static void updateWithAnnotations(MessageDigest md, Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            update(md, annotation.toString());
+        }
+    }
+
+    /**
+     * Adds a string to the digest. The string is terminated, so that the concatenation of two
+     * strings is not confused with a different pair of strings.
+     *
+     * @param md the digest to update
+     * @param s the string to add
+     */
+    private static void update(MessageDigest md, String s) {
+        md.update(s.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+    }
+
+    /**
+     * Returns a new SHA-256 digest.
+     *
+     * @return a new SHA-256 digest
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new BugInCF("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Returns the given bytes as a hexadecimal string.
+     *
+     * @param bytes the bytes to format
+     * @return the given bytes as a hexadecimal string
+     */
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+}
@@ -31,6 +31,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
@@ -63,6 +64,7 @@ import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.util.CFContext;
 import org.checkerframework.framework.util.CheckerMain;
 import org.checkerframework.framework.util.OptionConfiguration;
+import org.checkerframework.framework.util.PhaseProfiler;
 import org.checkerframework.javacutil.AbstractTypeProcessor;
 import org.checkerframework.javacutil.AnnotationProvider;
 import org.checkerframework.javacutil.AnnotationUtils;
@@ -362,12 +364,38 @@ import org.plumelib.util.UtilPlume;
     // Sets AnnotatedTypeFactory shouldCache to false
     "atfDoNotCache",
 
+    // Directory in which to cache the diagnostics issued for each top-level class, so that
+    // unchanged classes are not type-checked again by later compilations.
+    // org.checkerframework.framework.source.CheckResultCache
+    "resultCache",
+
+    // Discard the dataflow results of each method once it has been visited, to bound the memory
+    // used by dataflow analysis by the largest method rather than the whole class.
+    // org.checkerframework.framework.type.GenericAnnotatedTypeFactory.discardFlowResults
+    "discardFlowResults",
+
+    // The maximum number of basic blocks that the dataflow analysis of a single method, lambda, or
+    // initializer analyzes. Code whose analysis does not converge within the limit is checked
+    // without flow-sensitive type refinement, and a warning is issued.
+    // org.checkerframework.dataflow.analysis.ForwardAnalysisImpl.setIterationLimit
+    "flowIterationLimit",
+
+    // Remove the values of local variables that are no longer live from the dataflow stores, which
+    // makes the stores of long methods smaller and faster to compare and merge.
+    // org.checkerframework.framework.flow.CFAbstractAnalysis.addStoreBefore
+    "pruneDeadLocals",
+
     /// Miscellaneous debugging options
 
     // Whether to output resource statistics at JVM shutdown
     // org.checkerframework.framework.source.SourceChecker.shutdownHook()
     "resourceStats",
 
+    // Whether to output the cost of each phase of type-checking at JVM shutdown. If a directory
+    // is given, also write the results there as JSON and as folded stacks for flame graphs.
+    // org.checkerframework.framework.util.PhaseProfiler
+    "profile",
+
     // Parse all JDK files at startup rather than as needed.
     "parseAllJdk"
 })
@@ -907,6 +935,8 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         }
 
         // Visit the attributed tree.
+        PhaseProfiler profiler = getProfiler();
+        profiler.start(PhaseProfiler.Phase.VISITOR);
         try {
             visitor.visit(p);
             warnUnneededSuppressions();
@@ -919,12 +949,135 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         } catch (Throwable t) {
             logBugInCF(wrapThrowableAsBugInCF("SourceChecker.typeProcess", t, p));
         } finally {
+            profiler.recordClass(
+                    e.getQualifiedName().toString(), profiler.stop(PhaseProfiler.Phase.VISITOR));
             // Also add possibly deferred diagnostics, which will get published back in
             // AbstractTypeProcessor.
             this.errsOnLastExit = log.nerrors;
         }
     }
 
+    /** The profiler of this checker; see {@link #getProfiler}. */
+    private @Nullable PhaseProfiler profiler;
+
+    /**
+     * Returns the profiler of this checker. It measures nothing unless the "profile" option is
+     * given.
+     *
+     * @return the profiler of this checker
+     */
+    public PhaseProfiler getProfiler() {
+        if (profiler == null) {
+            profiler = PhaseProfiler.create(hasOption("profile"));
+        }
+        return profiler;
+    }
+
+    /**
+     * Returns the profilers of this checker and of the checkers that it runs, in the order in which
+     * they run. Used by the "profile" option.
+     *
+     * @return map from the fully-qualified name of each checker to its profiler
+     */
+    protected Map<String, PhaseProfiler> getProfilers() {
+        Map<String, PhaseProfiler> result = new LinkedHashMap<>();
+        result.put(getClass().getName(), getProfiler());
+        return result;
+    }
+
+    /** The cache of type-checking results, or null if the "resultCache" option is not given. */
+    private @Nullable CheckResultCache resultCache;
+
+    /** The fingerprint of the class whose diagnostics are being recorded, or null. */
+    private @Nullable String recordedFingerprint;
+
+    /** The diagnostics issued for the class whose fingerprint is {@link #recordedFingerprint}. */
+    private @Nullable List<CheckResultCache.CachedDiagnostic> recordedDiagnostics;
+
+    /** The number of errors logged before the recorded class was checked. */
+    private int recordedErrorsBefore;
+
+    /** The number of warnings logged before the recorded class was checked. */
+    private int recordedWarningsBefore;
+
+    /**
+     * If the "resultCache" option is given and the diagnostics for the given class are in the
+     * cache, prints them and returns true; the caller should then not type-check the class.
+     * Otherwise, starts recording the diagnostics for the class, to be stored by {@link
+     * #storeCachedResult}, and returns false.
+     *
+     * <p>Only the checker that runs all others should call this, before any checker processes the
+     * class.
+     *
+     * @param e the top-level class that is about to be type-checked
+     * @param p the path to the declaration of {@code e}
+     * @return true if the diagnostics for {@code e} were printed from the cache
+     * @see CheckResultCache
+     */
+    protected boolean replayCachedResult(TypeElement e, TreePath p) {
+        recordedFingerprint = null;
+        recordedDiagnostics = null;
+        if (!hasOption("resultCache") || hasOption("infer") || visitor == null) {
+            return false;
+        }
+        Log log = Log.instance(((JavacProcessingEnvironment) processingEnv).getContext());
+        if (log.nerrors > this.errsOnLastExit
+                || p.getCompilationUnit() == previousErrorCompilationUnit) {
+            // The class will not be type-checked, because it contains Java errors.
+            return false;
+        }
+        if (resultCache == null) {
+            resultCache = new CheckResultCache(this, getOption("resultCache"));
+        }
+        String fingerprint = resultCache.fingerprint(e, p);
+        if (fingerprint == null) {
+            return false;
+        }
+        List<CheckResultCache.CachedDiagnostic> cached = resultCache.lookup(fingerprint);
+        CompilationUnitTree root = p.getCompilationUnit();
+        List<Tree> sources = cached == null ? null : resultCache.findTrees(cached, root, trees);
+        if (cached == null || sources == null) {
+            recordedFingerprint = fingerprint;
+            recordedDiagnostics = new ArrayList<>();
+            recordedErrorsBefore = log.nerrors;
+            recordedWarningsBefore = log.nwarnings;
+            return false;
+        }
+        for (int i = 0; i < cached.size(); i++) {
+            CheckResultCache.CachedDiagnostic d = cached.get(i);
+            trees.printMessage(d.kind, d.message, sources.get(i), root);
+        }
+        this.errsOnLastExit = log.nerrors;
+        return true;
+    }
+
+    /**
+     * Stores the diagnostics recorded since the last call to {@link #replayCachedResult}, if any,
+     * in the result cache. Does nothing if some error or warning was issued other than through
+     * {@link #printOrStoreMessage}, for example if the checker crashed.
+     */
+    protected void storeCachedResult() {
+        if (recordedFingerprint == null || recordedDiagnostics == null || resultCache == null) {
+            return;
+        }
+        int errors = 0;
+        int warnings = 0;
+        for (CheckResultCache.CachedDiagnostic d : recordedDiagnostics) {
+            if (d.kind == Kind.ERROR) {
+                errors++;
+            } else if (d.kind == Kind.WARNING || d.kind == Kind.MANDATORY_WARNING) {
+                warnings++;
+            }
+        }
+        Log log = Log.instance(((JavacProcessingEnvironment) processingEnv).getContext());
+        if (log.nerrors - recordedErrorsBefore == errors
+                && log.nwarnings - recordedWarningsBefore == warnings) {
+            resultCache.store(recordedFingerprint, recordedDiagnostics);
+        }
+        recordedFingerprint = null;
+        recordedDiagnostics = null;
+    }
+
     ///////////////////////////////////////////////////////////////////////////
     /// Reporting type-checking errors; most clients use reportError() or reportWarning()
     ///
@@ -1086,8 +1239,24 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             String message,
             Tree source,
             CompilationUnitTree root) {
-        StackTraceElement[] trace = Thread.currentThread().getStackTrace();
-        printOrStoreMessage(kind, message, source, root, trace);
+        printOrStoreMessage(kind, message, source, root, getStackTraceForMessage());
+    }
+
+    /** An empty stack trace, used when no stack trace will be printed. */
+    private static final StackTraceElement[] EMPTY_STACK_TRACE = new StackTraceElement[0];
+
+    /**
+     * Returns the current stack trace if it will be printed along with a message, that is, if the
+     * "dumpOnErrors" option is enabled. Otherwise, returns an empty array, because computing a
+     * stack trace is expensive and most messages never need it.
+     *
+     * @return the current stack trace, or an empty array if "dumpOnErrors" is not enabled
+     */
+    protected StackTraceElement[] getStackTraceForMessage() {
+        if (hasOption("dumpOnErrors")) {
+            return Thread.currentThread().getStackTrace();
+        }
+        return EMPTY_STACK_TRACE;
     }
 
     /**
@@ -1107,7 +1276,13 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             Tree source,
             CompilationUnitTree root,
             StackTraceElement[] trace) {
-        Trees.instance(processingEnv).printMessage(kind, message, source, root);
+        Trees trees = Trees.instance(processingEnv);
+        if (recordedDiagnostics != null) {
+            recordedDiagnostics.add(
+                    new CheckResultCache.CachedDiagnostic(
+                            kind, message, source, root, trees.getSourcePositions()));
+        }
+        trees.printMessage(kind, message, source, root);
         printStackTrace(trace);
     }
 
@@ -2496,7 +2671,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor
      * @return true to add {@link #shutdownHook} as a shutdown hook of the JVM
      */
     protected boolean shouldAddShutdownHook() {
-        return hasOption("resourceStats");
+        return hasOption("resourceStats") || hasOption("profile");
     }
 
     /**
@@ -2510,10 +2685,16 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             // call the super implementations.
             printStats();
         }
+        if (hasOption("profile")) {
+            PhaseProfiler.report(getProfilers(), getOption("profile"), System.out);
+        }
     }
 
     /** Print resource usage statistics. */
     protected void printStats() {
+        if (resultCache != null) {
+            System.out.println(resultCache.statistics());
+        }
         List<MemoryPoolMXBean> memoryPools = ManagementFactory.getMemoryPoolMXBeans();
         for (MemoryPoolMXBean memoryPool : memoryPools) {
             System.out.println("Memory pool " + memoryPool.getName() + " statistics");
@@ -2,7 +2,6 @@ package org.checkerframework.framework.stub;
 
 import com.github.javaparser.ParseProblemException;
 import com.github.javaparser.Problem;
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.AccessSpecifier;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
@@ -502,7 +501,8 @@ public class StubParser {
 
     /**
      * Delegate to the Stub Parser to parse the stub file to an AST, and save it in {@link
-     * #stubUnit}. Subsequently, all work uses the AST.
+     * #stubUnit}. Subsequently, all work uses the AST. If an identical stub file has already been
+     * parsed, for example by another subchecker, its AST is reused; see {@link StubUnitCache}.
      *
      * @param inputStream the stream from which to read a stub file
      */
@@ -510,7 +510,10 @@ public class StubParser {
         if (debugStubParser) {
             stubDebug(String.format("parsing stub file %s", filename));
         }
-        stubUnit = StaticJavaParser.parseStubUnit(inputStream);
+        stubUnit = StubUnitCache.parseStubUnit(inputStream);
+        if (debugStubParser) {
+            stubDebug(String.format("%s (after %s)", StubUnitCache.statistics(), filename));
+        }
 
         // getAllStubAnnotations() also modifies importedConstants and importedTypes. This should
         // be refactored to be nicer.
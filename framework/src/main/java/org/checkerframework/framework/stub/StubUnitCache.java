@@ -0,0 +1,129 @@
+package org.checkerframework.framework.stub;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.StubUnit;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import org.checkerframework.javacutil.BugInCF;
+
+/**
+ * A process-wide cache of the ASTs produced by the Stub Parser, keyed by a hash of the contents of
+ * the stub file.
+ *
+ * <p>Parsing a stub file is independent of the compilation and of the checker: only the later
+ * walk over the AST, in {@link StubParser}, consults the {@code ProcessingEnvironment}. Every
+ * subchecker of a compound checker parses {@code jdk.astub} and the annotated JDK, and a
+ * long-lived compiler daemon parses them again for every compilation. This cache lets all of
+ * them share a single parse of each distinct stub file. The ASTs are treated as read-only once
+ * they are in the cache.
+ *
+ * <p>Values are held through soft references, so the cache never causes an OutOfMemoryError; an
+ * AST that the garbage collector reclaimed is simply parsed again.
+ */
+final class StubUnitCache {
+
+    /** Map from the SHA-256 digest of a stub file's contents to its parsed AST. */
+    private static final Map<String, SoftReference<StubUnit>> cache = new HashMap<>();
+
+    /** The number of lookups that were answered from the cache. */
+    private static int hits = 0;
+
+    /** The number of lookups that required running the Stub Parser. */
+    private static int misses = 0;
+
+    /** Do not instantiate. */
+    private StubUnitCache() {
+        throw new BugInCF("Class StubUnitCache cannot be instantiated.");
+    }
+
+    /**
+     * Returns the AST for the stub file whose contents are read from {@code inputStream}. Parses
+     * the contents with the Stub Parser only if an identical stub file has not already been
+     * parsed. The result must not be side-effected.
+     *
+     * @param inputStream the stream from which to read a stub file; it is read to the end but is
+     *     not closed
+     * @return the AST of the stub file
+     * @throws com.github.javaparser.ParseProblemException if the stub file cannot be parsed; such
+     *     failures are not cached
+     */
+    static StubUnit parseStubUnit(InputStream inputStream) {
+        byte[] contents = readAllBytes(inputStream);
+        String key = digest(contents);
+        synchronized (cache) {
+            SoftReference<StubUnit> ref = cache.get(key);
+            StubUnit cached = ref == null ? null : ref.get();
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+        StubUnit stubUnit = StaticJavaParser.parseStubUnit(new ByteArrayInputStream(contents));
+        synchronized (cache) {
+            cache.put(key, new SoftReference<>(stubUnit));
+        }
+        return stubUnit;
+    }
+
+    /**
+     * Returns a one-line summary of how effective the cache has been, for debugging output.
+     *
+     * @return a summary of the cache hits and misses so far
+     */
+    static String statistics() {
+        synchronized (cache) {
+            return String.format(
+                    "stub file cache: %d hits, %d misses, %d entries",
+                    hits, misses, cache.size());
+        }
+    }
+
+    /**
+     * Reads the remaining contents of the given stream.
+     *
+     * @param in the stream to read
+     * @return the bytes read from {@code in}
+     */
+    private static byte[] readAllBytes(InputStream in) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        } catch (IOException e) {
+            throw new BugInCF("Cannot read stub file", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the SHA-256 digest of {@code contents}, as a hexadecimal string.
+     *
+     * @param contents the bytes to hash
+     * @return the SHA-256 digest of {@code contents}
+     */
+    private static String digest(byte[] contents) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new BugInCF("SHA-256 is not available", e);
+        }
+        byte[] hash = md.digest(contents);
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+}
@@ -37,6 +37,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.StringJoiner;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.processing.ProcessingEnvironment;
@@ -67,7 +68,7 @@ import org.checkerframework.common.reflection.MethodValAnnotatedTypeFactory;
 import org.checkerframework.common.reflection.MethodValChecker;
 import org.checkerframework.common.reflection.ReflectionResolver;
 import org.checkerframework.common.wholeprograminference.WholeProgramInference;
-import org.checkerframework.common.wholeprograminference.WholeProgramInferenceScenes;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceDriver;
 import org.checkerframework.dataflow.qual.SideEffectFree;
 import org.checkerframework.framework.qual.FieldInvariant;
 import org.checkerframework.framework.qual.FromStubFile;
@@ -95,6 +96,7 @@ import org.checkerframework.framework.util.FieldInvariants;
 import org.checkerframework.framework.util.GraphQualifierHierarchy;
 import org.checkerframework.framework.util.MultiGraphQualifierHierarchy;
 import org.checkerframework.framework.util.MultiGraphQualifierHierarchy.MultiGraphFactory;
+import org.checkerframework.framework.util.PhaseProfiler;
 import org.checkerframework.framework.util.TreePathCacher;
 import org.checkerframework.framework.util.typeinference.DefaultTypeArgumentInference;
 import org.checkerframework.framework.util.typeinference.TypeArgInferenceUtil;
@@ -105,6 +107,7 @@ import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.LRUCache;
 import org.checkerframework.javacutil.Pair;
 import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.TypeSystemError;
@@ -374,6 +377,16 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     /** Mapping from an Element to the source Tree of the declaration. */
     private final Map<Element, Tree> elementToTreeCache;
 
+    /**
+     * Mapping from a receiver type and a class to the values, in the receiver type, of the type
+     * variables of the class and of its enclosing classes. Used by {@link
+     * AnnotatedTypes#asMemberOf}; see {@link #getTypeVarMappingsCache}.
+     */
+    private final Map<
+                    Pair<AnnotatedTypeMirror, TypeElement>,
+                    Map<TypeVariable, AnnotatedTypeMirror>>
+            typeVarMappingsCache;
+
     /** Mapping from a Tree to its TreePath. Shared between all instances. */
     private final TreePathCacher treePathCache;
 
@@ -431,12 +444,13 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         this.shouldCache = !checker.hasOption("atfDoNotCache");
         if (shouldCache) {
             int cacheSize = getCacheSize();
-            this.classAndMethodTreeCache = CollectionUtils.createLRUCache(cacheSize);
-            this.fromExpressionTreeCache = CollectionUtils.createLRUCache(cacheSize);
-            this.fromMemberTreeCache = CollectionUtils.createLRUCache(cacheSize);
-            this.fromTypeTreeCache = CollectionUtils.createLRUCache(cacheSize);
-            this.elementCache = CollectionUtils.createLRUCache(cacheSize);
-            this.elementToTreeCache = CollectionUtils.createLRUCache(cacheSize);
+            this.classAndMethodTreeCache = createCache(cacheSize);
+            this.fromExpressionTreeCache = createCache(cacheSize);
+            this.fromMemberTreeCache = createCache(cacheSize);
+            this.fromTypeTreeCache = createCache(cacheSize);
+            this.elementCache = createCache(cacheSize);
+            this.elementToTreeCache = createCache(cacheSize);
+            this.typeVarMappingsCache = createCache(cacheSize);
             this.annotationClassNames =
                     Collections.synchronizedMap(
                             CollectionUtils.createLRUCache(ANNOTATION_CACHE_SIZE));
@@ -447,6 +461,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             this.fromTypeTreeCache = null;
             this.elementCache = null;
             this.elementToTreeCache = null;
+            this.typeVarMappingsCache = null;
             this.annotationClassNames = null;
         }
 
@@ -476,7 +491,9 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             }
             boolean isNullnessChecker =
                     "NullnessAnnotatedTypeFactory".equals(this.getClass().getSimpleName());
-            wholeProgramInference = new WholeProgramInferenceScenes(!isNullnessChecker);
+            wholeProgramInference =
+                    WholeProgramInferenceDriver.getWholeProgramInference(
+                            checker, !isNullnessChecker);
         } else {
             wholeProgramInference = null;
         }
@@ -1011,7 +1028,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      *
      * @return cache size passed as argument to checker or DEFAULT_CACHE_SIZE
      */
-    protected int getCacheSize() {
+    public int getCacheSize() {
         String option = checker.getOption("atfCacheSize");
         if (option == null) {
             return DEFAULT_CACHE_SIZE;
@@ -1023,6 +1040,71 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         }
     }
 
+    /**
+     * Creates a cache that holds at most {@code size} entries. This factory uses it for each of its
+     * caches of annotated types, elements, and trees, and so do helpers of this factory such as
+     * {@link org.checkerframework.framework.util.dependenttypes.DependentTypesHelper}. Subclasses
+     * may override it to use a different eviction policy; the default is least-recently-used.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @param size the maximum number of entries, as returned by {@link #getCacheSize}
+     * @return a new, empty cache
+     */
+    public <K, V> Map<K, V> createCache(int size) {
+        return CollectionUtils.createLRUCache(size);
+    }
+
+    /**
+     * Returns a description of the effectiveness of each of this factory's caches, one per line.
+     * Printed by the "resourceStats" option.
+     *
+     * @return a description of the effectiveness of each of this factory's caches
+     */
+    public String getCacheStatistics() {
+        StringJoiner result = new StringJoiner(System.lineSeparator());
+        if (shouldCache) {
+            addCacheStatistics(result, "classAndMethodTreeCache", classAndMethodTreeCache);
+            addCacheStatistics(result, "fromExpressionTreeCache", fromExpressionTreeCache);
+            addCacheStatistics(result, "fromMemberTreeCache", fromMemberTreeCache);
+            addCacheStatistics(result, "fromTypeTreeCache", fromTypeTreeCache);
+            addCacheStatistics(result, "elementCache", elementCache);
+            addCacheStatistics(result, "elementToTreeCache", elementToTreeCache);
+            addCacheStatistics(result, "typeVarMappingsCache", typeVarMappingsCache);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the cache of the type-variable substitutions computed by {@link
+     * AnnotatedTypes#asMemberOf}, or null if this factory does not cache results. The cache maps a
+     * receiver type and a class to the values, in the receiver type, of the type variables of the
+     * class and of its enclosing classes. The receiver types in its keys and the types in its
+     * values are shared and must not be modified.
+     *
+     * @return the cache of type-variable substitutions, or null
+     */
+    public @Nullable Map<
+                    Pair<AnnotatedTypeMirror, TypeElement>,
+                    Map<TypeVariable, AnnotatedTypeMirror>>
+            getTypeVarMappingsCache() {
+        return typeVarMappingsCache;
+    }
+
+    /**
+     * Adds a line describing the effectiveness of the given cache to {@code result}, if the cache
+     * keeps statistics.
+     *
+     * @param result where to add the description
+     * @param name the name of the cache
+     * @param cache the cache
+     */
+    protected static void addCacheStatistics(StringJoiner result, String name, Map<?, ?> cache) {
+        if (cache instanceof LRUCache) {
+            result.add("  " + name + ": " + ((LRUCache<?, ?>) cache).statistics());
+        }
+    }
+
     /**
      * Returns an AnnotatedTypeMirror representing the annotated type of {@code elt}.
      *
@@ -1067,8 +1149,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         if (tree == null) {
             throw new BugInCF("AnnotatedTypeFactory.getAnnotatedType: null tree");
         }
-        if (shouldCache && classAndMethodTreeCache.containsKey(tree)) {
-            return classAndMethodTreeCache.get(tree).deepCopy();
+        if (shouldCache) {
+            AnnotatedTypeMirror cached = classAndMethodTreeCache.get(tree);
+            if (cached != null) {
+                return cached.deepCopy();
+            }
         }
 
         AnnotatedTypeMirror type;
@@ -1196,8 +1281,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * @return AnnotatedTypeMirror of the element with explicitly-written and stub file annotations
      */
     public AnnotatedTypeMirror fromElement(Element elt) {
-        if (shouldCache && elementCache.containsKey(elt)) {
-            return elementCache.get(elt).deepCopy();
+        if (shouldCache) {
+            AnnotatedTypeMirror cached = elementCache.get(elt);
+            if (cached != null) {
+                return cached.deepCopy();
+            }
         }
         if (elt.getKind() == ElementKind.PACKAGE) {
             return toAnnotatedType(elt.asType(), false);
@@ -1270,14 +1358,21 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
                     "AnnotatedTypeFactory.fromMember: not a method or variable declaration: "
                             + tree);
         }
-        if (shouldCache && fromMemberTreeCache.containsKey(tree)) {
-            return fromMemberTreeCache.get(tree).deepCopy();
+        if (shouldCache) {
+            AnnotatedTypeMirror cached = fromMemberTreeCache.get(tree);
+            if (cached != null) {
+                return cached.deepCopy();
+            }
         }
         AnnotatedTypeMirror result = TypeFromTree.fromMember(this, tree);
 
         if (checker.hasOption("mergeStubsWithSource")) {
             result = mergeStubsIntoType(result, tree);
         }
+        if (wholeProgramInference != null) {
+            wholeProgramInference.addInferredAnnotations(
+                    TreeUtils.elementFromTree(tree), result, this);
+        }
 
         if (shouldCache) {
             fromMemberTreeCache.put(tree, result.deepCopy());
@@ -1339,8 +1434,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * @see TypeFromExpressionVisitor
      */
     private AnnotatedTypeMirror fromExpression(ExpressionTree tree) {
-        if (shouldCache && fromExpressionTreeCache.containsKey(tree)) {
-            return fromExpressionTreeCache.get(tree).deepCopy();
+        if (shouldCache) {
+            AnnotatedTypeMirror cached = fromExpressionTreeCache.get(tree);
+            if (cached != null) {
+                return cached.deepCopy();
+            }
         }
 
         AnnotatedTypeMirror result = TypeFromTree.fromExpression(this, tree);
@@ -1367,8 +1465,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * @return the (partially) annotated type of the type in the AST
      */
     /*package private*/ final AnnotatedTypeMirror fromTypeTree(Tree tree) {
-        if (shouldCache && fromTypeTreeCache.containsKey(tree)) {
-            return fromTypeTreeCache.get(tree).deepCopy();
+        if (shouldCache) {
+            AnnotatedTypeMirror cached = fromTypeTreeCache.get(tree);
+            if (cached != null) {
+                return cached.deepCopy();
+            }
         }
 
         AnnotatedTypeMirror result = TypeFromTree.fromTypeTree(this, tree);
@@ -2865,8 +2966,12 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         if (root == null) {
             return null;
         }
-        if (shouldCache && elementToTreeCache.containsKey(elt)) {
-            return elementToTreeCache.get(elt);
+        if (shouldCache) {
+            // The cache maps elements without a declaration in this compilation unit to null.
+            Tree cached = elementToTreeCache.get(elt);
+            if (cached != null || elementToTreeCache.containsKey(elt)) {
+                return cached;
+            }
         }
 
         // Check for new declarations, outside of the AST.
@@ -3157,7 +3262,13 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
      * <p>Sets typesFromStubFiles and declAnnosFromStubFiles by side effect, just before returning.
      */
     protected void parseStubFiles() {
-        stubTypes.parseStubFiles();
+        PhaseProfiler profiler = checker.getProfiler();
+        profiler.start(PhaseProfiler.Phase.STUB_PARSING);
+        try {
+            stubTypes.parseStubFiles();
+        } finally {
+            profiler.stop(PhaseProfiler.Phase.STUB_PARSING);
+        }
     }
 
     /**
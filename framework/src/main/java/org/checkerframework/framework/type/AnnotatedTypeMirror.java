@@ -851,6 +851,22 @@ public abstract class AnnotatedTypeMirror {
 
         @Override
         public AnnotatedDeclaredType deepCopy(boolean copyAnnotations) {
+            if (enclosingType == null && (typeArgs == null || typeArgs.isEmpty())) {
+                // This type has no component types, so copying it does not require the
+                // bookkeeping that AnnotatedTypeCopier does to preserve the structure of a type.
+                AnnotatedDeclaredType copy =
+                        new AnnotatedDeclaredType(getUnderlyingType(), atypeFactory, declaration);
+                if (copyAnnotations) {
+                    copy.addAnnotations(this.getAnnotationsField());
+                }
+                if (wasRaw) {
+                    copy.setWasRaw();
+                }
+                if (typeArgs != null) {
+                    copy.typeArgs = Collections.emptyList();
+                }
+                return copy;
+            }
             return (AnnotatedDeclaredType) new AnnotatedTypeCopier(copyAnnotations).visit(this);
         }
 
@@ -1697,7 +1713,8 @@ public abstract class AnnotatedTypeMirror {
 
         @Override
         public AnnotatedNoType deepCopy(boolean copyAnnotations) {
-            return (AnnotatedNoType) new AnnotatedTypeCopier(copyAnnotations).visit(this);
+            // This type has no component types, so a shallow copy is a deep copy.
+            return shallowCopy(copyAnnotations);
         }
 
         @Override
@@ -1739,7 +1756,8 @@ public abstract class AnnotatedTypeMirror {
 
         @Override
         public AnnotatedNullType deepCopy(boolean copyAnnotations) {
-            return (AnnotatedNullType) new AnnotatedTypeCopier(copyAnnotations).visit(this);
+            // This type has no component types, so a shallow copy is a deep copy.
+            return shallowCopy(copyAnnotations);
         }
 
         @Override
@@ -1784,7 +1802,8 @@ public abstract class AnnotatedTypeMirror {
 
         @Override
         public AnnotatedPrimitiveType deepCopy(boolean copyAnnotations) {
-            return (AnnotatedPrimitiveType) new AnnotatedTypeCopier(copyAnnotations).visit(this);
+            // This type has no component types, so a shallow copy is a deep copy.
+            return shallowCopy(copyAnnotations);
         }
 
         @Override
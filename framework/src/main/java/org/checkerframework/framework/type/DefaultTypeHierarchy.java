@@ -22,6 +22,7 @@ import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedWildcard
 import org.checkerframework.framework.type.visitor.AbstractAtmComboVisitor;
 import org.checkerframework.framework.util.AnnotatedTypes;
 import org.checkerframework.framework.util.AtmCombo;
+import org.checkerframework.framework.util.PhaseProfiler;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.TypesUtils;
@@ -157,13 +158,19 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Void>
     @Override
     public boolean isSubtype(
             final AnnotatedTypeMirror subtype, final AnnotatedTypeMirror supertype) {
-        for (final AnnotationMirror top : qualifierHierarchy.getTopAnnotations()) {
-            if (!isSubtype(subtype, supertype, top)) {
-                return false;
+        PhaseProfiler profiler = checker.getProfiler();
+        profiler.start(PhaseProfiler.Phase.SUBTYPE_TESTS);
+        try {
+            for (final AnnotationMirror top : qualifierHierarchy.getTopAnnotations()) {
+                if (!isSubtype(subtype, supertype, top)) {
+                    return false;
+                }
             }
-        }
 
-        return true;
+            return true;
+        } finally {
+            profiler.stop(PhaseProfiler.Phase.SUBTYPE_TESTS);
+        }
     }
 
     /**
@@ -43,6 +43,7 @@ import org.checkerframework.dataflow.analysis.FlowExpressions;
 import org.checkerframework.dataflow.analysis.FlowExpressions.FieldAccess;
 import org.checkerframework.dataflow.analysis.FlowExpressions.LocalVariable;
 import org.checkerframework.dataflow.analysis.FlowExpressions.Receiver;
+import org.checkerframework.dataflow.analysis.RegularTransferResult;
 import org.checkerframework.dataflow.analysis.TransferInput;
 import org.checkerframework.dataflow.analysis.TransferResult;
 import org.checkerframework.dataflow.cfg.CFGVisualizer;
@@ -90,6 +91,7 @@ import org.checkerframework.framework.type.typeannotator.TypeAnnotator;
 import org.checkerframework.framework.util.AnnotatedTypes;
 import org.checkerframework.framework.util.FlowExpressionParseUtil;
 import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressionParseException;
+import org.checkerframework.framework.util.PhaseProfiler;
 import org.checkerframework.framework.util.defaults.QualifierDefaults;
 import org.checkerframework.framework.util.dependenttypes.DependentTypesHelper;
 import org.checkerframework.framework.util.dependenttypes.DependentTypesTreeAnnotator;
@@ -97,7 +99,6 @@ import org.checkerframework.framework.util.typeinference.TypeArgInferenceUtil;
 import org.checkerframework.javacutil.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
-import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.ElementUtils;
 import org.checkerframework.javacutil.Pair;
 import org.checkerframework.javacutil.TreeUtils;
@@ -247,11 +248,12 @@ public abstract class GenericAnnotatedTypeFactory<
         this.initializationStaticStore = null;
 
         this.cfgVisualizer = createCFGVisualizer();
+        this.discardFlowResults = checker.hasOption("discardFlowResults");
 
         if (shouldCache) {
             int cacheSize = getCacheSize();
-            flowResultAnalysisCaches = CollectionUtils.createLRUCache(cacheSize);
-            initializerCache = CollectionUtils.createLRUCache(cacheSize);
+            flowResultAnalysisCaches = createCache(cacheSize);
+            initializerCache = createCache(cacheSize);
         } else {
             flowResultAnalysisCaches = null;
             initializerCache = null;
@@ -315,6 +317,7 @@ public abstract class GenericAnnotatedTypeFactory<
         this.returnStatementStores = null;
         this.initializationStore = null;
         this.initializationStaticStore = null;
+        this.methodCFGs.clear();
 
         if (shouldCache) {
             this.flowResultAnalysisCaches.clear();
@@ -323,6 +326,17 @@ public abstract class GenericAnnotatedTypeFactory<
         }
     }
 
+    @Override
+    public String getCacheStatistics() {
+        StringJoiner result = new StringJoiner(System.lineSeparator());
+        result.add(super.getCacheStatistics());
+        if (shouldCache) {
+            addCacheStatistics(result, "flowResultAnalysisCaches", flowResultAnalysisCaches);
+            addCacheStatistics(result, "initializerCache", initializerCache);
+        }
+        return result.toString();
+    }
+
     // **********************************************************************
     // Factory Methods for the appropriate annotator classes
     // **********************************************************************
@@ -884,6 +898,21 @@ public abstract class GenericAnnotatedTypeFactory<
      */
     protected IdentityHashMap<MethodInvocationTree, Store> methodInvocationStores;
 
+    /**
+     * Whether the "discardFlowResults" option was given: if so, the results of the dataflow
+     * analysis of a method are discarded once the method has been visited. See {@link
+     * #discardFlowResults}.
+     */
+    protected final boolean discardFlowResults;
+
+    /**
+     * Map from each method to the control-flow graphs of its body and of the lambda expressions
+     * in it, whose results {@link #flowResult} contains. Only used if {@link #discardFlowResults}
+     * is true.
+     */
+    private final IdentityHashMap<MethodTree, List<ControlFlowGraph>> methodCFGs =
+            new IdentityHashMap<>();
+
     /**
      * Returns the regular exit store for a method or another code block (such as static
      * initializers).
@@ -1061,6 +1090,32 @@ public abstract class GenericAnnotatedTypeFactory<
         return null;
     }
 
+    /**
+     * Discards the results of the dataflow analysis of the body of {@code method} and of the lambda
+     * expressions in it, if the "discardFlowResults" option was given. Afterwards, trees in {@code
+     * method} have no flow-sensitive types, except for those that are already cached. The exit
+     * stores of {@code method} are kept, because checks at the method's declaration use them.
+     *
+     * <p>Called after {@code method} has been visited, so that the memory used by the dataflow
+     * analysis of a class is bounded by its largest method, rather than by the whole class. In a
+     * compound checker, a checker may query the type factories of its subcheckers while it visits
+     * {@code method}, so the results of every checker are discarded only after the checker without
+     * a parent has visited it; see {@link BaseTypeChecker#discardFlowResults}.
+     *
+     * @param method a method that has been visited
+     */
+    public void discardFlowResults(MethodTree method) {
+        if (!discardFlowResults) {
+            return;
+        }
+        List<ControlFlowGraph> cfgs = methodCFGs.remove(method);
+        if (cfgs != null && flowResult != null) {
+            for (ControlFlowGraph cfg : cfgs) {
+                flowResult.remove(cfg);
+            }
+        }
+    }
+
     /**
      * Returns the value of effectively final local variables.
      *
@@ -1278,7 +1333,14 @@ public abstract class GenericAnnotatedTypeFactory<
             boolean updateInitializationStore,
             boolean isStatic,
             Store capturedStore) {
-        ControlFlowGraph cfg = CFCFGBuilder.build(root, ast, checker, this, processingEnv);
+        PhaseProfiler profiler = checker.getProfiler();
+        profiler.start(PhaseProfiler.Phase.CFG_CONSTRUCTION);
+        ControlFlowGraph cfg;
+        try {
+            cfg = CFCFGBuilder.build(root, ast, checker, this, processingEnv);
+        } finally {
+            profiler.stop(PhaseProfiler.Phase.CFG_CONSTRUCTION);
+        }
 
         if (isInitializationCode) {
             Store initStore = !isStatic ? initializationStore : initializationStaticStore;
@@ -1293,11 +1355,37 @@ public abstract class GenericAnnotatedTypeFactory<
         } else {
             transfer.setFixedInitialStore(capturedStore);
         }
-        analysis.performAnalysis(cfg, fieldValues);
+        profiler.start(PhaseProfiler.Phase.DATAFLOW);
+        try {
+            analysis.performAnalysis(cfg, fieldValues);
+        } finally {
+            profiler.stop(PhaseProfiler.Phase.DATAFLOW);
+        }
+        if (analysis.isIterationLimitReached()) {
+            handleIterationLimitReached(
+                    queue,
+                    lambdaQueue,
+                    ast,
+                    cfg,
+                    isInitializationCode && updateInitializationStore,
+                    isStatic);
+            return;
+        }
         AnalysisResult<Value, Store> result = analysis.getResult();
 
         // store result
         flowResult.combine(result);
+        if (discardFlowResults) {
+            MethodTree enclosingMethod = null;
+            if (ast.getKind() == UnderlyingAST.Kind.METHOD) {
+                enclosingMethod = ((CFGMethod) ast).getMethod();
+            } else if (ast.getKind() == UnderlyingAST.Kind.LAMBDA) {
+                enclosingMethod = ((CFGLambda) ast).getMethod();
+            }
+            if (enclosingMethod != null) {
+                methodCFGs.computeIfAbsent(enclosingMethod, m -> new ArrayList<>()).add(cfg);
+            }
+        }
         if (ast.getKind() == UnderlyingAST.Kind.METHOD) {
             // store exit store (for checking postconditions)
             CFGMethod mast = (CFGMethod) ast;
@@ -1358,6 +1446,80 @@ public abstract class GenericAnnotatedTypeFactory<
         postAnalyze(cfg);
     }
 
+    /**
+     * Handles code whose dataflow analysis stopped before reaching a fixed point, because it
+     * reached the limit given by the "flowIterationLimit" option. Issues a warning, once per
+     * compound checker (see {@link BaseTypeChecker#reportFlowIterationLimit}), and discards the
+     * results of the analysis, which are not sound: expressions in the code get no flow-sensitive
+     * type refinement, and the exit stores of the code, the stores at its return statements, and
+     * the initialization store are set to an empty store. Postconditions and field initialization
+     * are therefore checked as if nothing were known at the end of the code. Classes and lambda
+     * expressions declared in the code are still analyzed, without a captured store.
+     *
+     * @param queue the queue for encountered class trees and their initial stores
+     * @param lambdaQueue the queue for encountered lambda expression trees and their initial stores
+     * @param ast the code whose analysis stopped
+     * @param cfg the control-flow graph of {@code ast}
+     * @param updateInitializationStore whether {@code ast} is initialization code whose exit store
+     *     would have been used as the initialization store
+     * @param isStatic whether {@code ast} is static initialization code
+     */
+    protected void handleIterationLimitReached(
+            Queue<Pair<ClassTree, Store>> queue,
+            Queue<Pair<LambdaExpressionTree, Store>> lambdaQueue,
+            UnderlyingAST ast,
+            ControlFlowGraph cfg,
+            boolean updateInitializationStore,
+            boolean isStatic) {
+        boolean sequential = transfer.usesSequentialSemantics();
+        Tree tree;
+        switch (ast.getKind()) {
+            case METHOD:
+                MethodTree method = ((CFGMethod) ast).getMethod();
+                regularExitStores.put(method, analysis.createEmptyStore(sequential));
+                exceptionalExitStores.put(method, analysis.createEmptyStore(sequential));
+                List<Pair<ReturnNode, TransferResult<Value, Store>>> returns = new ArrayList<>();
+                for (ReturnNode returnNode : cfg.getReturnNodes()) {
+                    returns.add(
+                            Pair.of(
+                                    returnNode,
+                                    new RegularTransferResult<>(
+                                            null, analysis.createEmptyStore(sequential))));
+                }
+                returnStatementStores.put(method, returns);
+                tree = method;
+                break;
+            case LAMBDA:
+                tree = ((CFGLambda) ast).getLambdaTree();
+                regularExitStores.put(ast.getCode(), analysis.createEmptyStore(sequential));
+                exceptionalExitStores.put(ast.getCode(), analysis.createEmptyStore(sequential));
+                break;
+            default:
+                tree = ast.getCode();
+                regularExitStores.put(tree, analysis.createEmptyStore(sequential));
+                exceptionalExitStores.put(tree, analysis.createEmptyStore(sequential));
+                break;
+        }
+        checker.reportFlowIterationLimit(tree);
+
+        if (updateInitializationStore) {
+            if (!isStatic) {
+                initializationStore = analysis.createEmptyStore(sequential);
+            } else {
+                initializationStaticStore = analysis.createEmptyStore(sequential);
+            }
+        }
+
+        for (ClassTree cls : cfg.getDeclaredClasses()) {
+            queue.add(Pair.of(cls, null));
+        }
+        for (LambdaExpressionTree lambda : cfg.getDeclaredLambdas()) {
+            lambdaQueue.add(Pair.of(lambda, null));
+        }
+
+        postAnalyze(cfg);
+    }
+
     /**
      * Perform any additional operations on a CFG. Called once per CFG, after the CFG has been
      * analyzed by {@link #analyze(Queue, Queue, UnderlyingAST, List, ClassTree, boolean, boolean,
@@ -1575,13 +1737,24 @@ public abstract class GenericAnnotatedTypeFactory<
             addAnnotationsFromDefaultForType(TreeUtils.elementFromTree(tree), type);
         }
         applyQualifierParameterDefaults(tree, type);
-        treeAnnotator.visit(tree, type);
-        if (TreeUtils.isExpressionTree(tree)) {
-            // If a tree annotator, did not add a type, add the DefaultForUse default.
-            addAnnotationsFromDefaultForType(TreeUtils.elementFromTree(tree), type);
+        PhaseProfiler profiler = checker.getProfiler();
+        profiler.start(PhaseProfiler.Phase.TREE_ANNOTATION);
+        try {
+            treeAnnotator.visit(tree, type);
+            if (TreeUtils.isExpressionTree(tree)) {
+                // If a tree annotator, did not add a type, add the DefaultForUse default.
+                addAnnotationsFromDefaultForType(TreeUtils.elementFromTree(tree), type);
+            }
+            typeAnnotator.visit(type, null);
+        } finally {
+            profiler.stop(PhaseProfiler.Phase.TREE_ANNOTATION);
+        }
+        profiler.start(PhaseProfiler.Phase.DEFAULTS);
+        try {
+            defaults.annotate(tree, type);
+        } finally {
+            profiler.stop(PhaseProfiler.Phase.DEFAULTS);
         }
-        typeAnnotator.visit(type, null);
-        defaults.annotate(tree, type);
 
         if (iUseFlow) {
             Value as = getInferredValueFor(tree);
@@ -1749,10 +1922,9 @@ public abstract class GenericAnnotatedTypeFactory<
 
         VariableElement variableElt = (VariableElement) elt;
         variablesUnderInitialization.add(variableElt);
-        AnnotatedTypeMirror initializerType;
-        if (shouldCache && initializerCache.containsKey(initializer)) {
-            initializerType = initializerCache.get(initializer);
-        } else {
+        AnnotatedTypeMirror initializerType =
+                shouldCache ? initializerCache.get(initializer) : null;
+        if (initializerType == null) {
             // When this method is called by getAnnotatedTypeLhs, flow is turned off.
             // Turn it back on so the type of the initializer is the refined type.
             boolean oldUseFlow = useFlow;
@@ -1792,8 +1964,19 @@ public abstract class GenericAnnotatedTypeFactory<
     public void addComputedTypeAnnotations(Element elt, AnnotatedTypeMirror type) {
         addAnnotationsFromDefaultForType(elt, type);
         applyQualifierParameterDefaults(elt, type);
-        typeAnnotator.visit(type, null);
-        defaults.annotate(elt, type);
+        PhaseProfiler profiler = checker.getProfiler();
+        profiler.start(PhaseProfiler.Phase.TREE_ANNOTATION);
+        try {
+            typeAnnotator.visit(type, null);
+        } finally {
+            profiler.stop(PhaseProfiler.Phase.TREE_ANNOTATION);
+        }
+        profiler.start(PhaseProfiler.Phase.DEFAULTS);
+        try {
+            defaults.annotate(elt, type);
+        } finally {
+            profiler.stop(PhaseProfiler.Phase.DEFAULTS);
+        }
         if (dependentTypesHelper != null) {
             dependentTypesHelper.standardizeVariable(type, elt);
         }
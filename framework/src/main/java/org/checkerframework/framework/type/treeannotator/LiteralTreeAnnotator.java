@@ -5,6 +5,7 @@ import com.sun.source.tree.Tree;
 import com.sun.source.tree.Tree.Kind;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
@@ -13,6 +14,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 import javax.lang.model.element.AnnotationMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.framework.qual.LiteralKind;
 import org.checkerframework.framework.qual.QualifierForLiterals;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
@@ -49,6 +51,14 @@ public class LiteralTreeAnnotator extends TreeAnnotator {
 
     protected final QualifierHierarchy qualHierarchy;
 
+    /**
+     * Map from the value of a string literal to the annotations that its pattern matches yield, or
+     * to the empty set if no pattern matches it. The same strings occur many times in a program;
+     * this avoids matching each of them against every pattern again. It is cleared whenever a
+     * pattern is added. Null if the factory does not cache.
+     */
+    private final @Nullable Map<String, Set<? extends AnnotationMirror>> stringLiteralAnnotations;
+
     /**
      * Map of {@link LiteralKind}s to {@link Tree.Kind}s. This is here and not in LiteralKinds
      * because LiteralKind is in the checker-qual.jar which cannot depend on classes, such as
@@ -74,6 +84,10 @@ public class LiteralTreeAnnotator extends TreeAnnotator {
         this.treeKinds = new EnumMap<>(Kind.class);
         this.treeClasses = new HashMap<>();
         this.stringPatterns = new IdentityHashMap<>();
+        this.stringLiteralAnnotations =
+                atypeFactory.shouldCache
+                        ? atypeFactory.createCache(atypeFactory.getCacheSize())
+                        : null;
 
         this.qualHierarchy = atypeFactory.getQualifierHierarchy();
 
@@ -191,6 +205,9 @@ public class LiteralTreeAnnotator extends TreeAnnotator {
                             + " with "
                             + theQual);
         }
+        if (stringLiteralAnnotations != null) {
+            stringLiteralAnnotations.clear();
+        }
     }
 
     @Override
@@ -228,43 +245,67 @@ public class LiteralTreeAnnotator extends TreeAnnotator {
     @Override
     public Void visitLiteral(LiteralTree tree, AnnotatedTypeMirror type) {
         if (!stringPatterns.isEmpty() && tree.getKind() == Kind.STRING_LITERAL) {
-            List<Set<? extends AnnotationMirror>> matches = new ArrayList<>();
-            List<Set<? extends AnnotationMirror>> nonMatches = new ArrayList<>();
-
             String string = (String) tree.getValue();
-            for (Pattern pattern : stringPatterns.keySet()) {
-                Set<AnnotationMirror> sam = stringPatterns.get(pattern);
-                if (pattern.matcher(string).matches()) {
-                    matches.add(sam);
-                } else {
-                    nonMatches.add(sam);
+            Set<? extends AnnotationMirror> res;
+            if (stringLiteralAnnotations == null) {
+                res = getStringPatternAnnotations(string);
+            } else {
+                res = stringLiteralAnnotations.get(string);
+                if (res == null) {
+                    res = getStringPatternAnnotations(string);
+                    stringLiteralAnnotations.put(string, res);
                 }
             }
-            if (!matches.isEmpty()) {
-                Set<? extends AnnotationMirror> res = matches.get(0);
-                for (Set<? extends AnnotationMirror> sam : matches) {
-                    res = qualHierarchy.greatestLowerBounds(res, sam);
-                }
-                // Verify that res is not a subtype of any type in nonMatches
-                for (Set<? extends AnnotationMirror> sam : nonMatches) {
-                    if (qualHierarchy.isSubtype(res, sam)) {
-                        String matchesOnePerLine = "";
-                        for (Set<? extends AnnotationMirror> match : matches) {
-                            matchesOnePerLine += System.lineSeparator() + "     " + match;
-                        }
-                        throw new BugInCF(
-                                UtilPlume.joinLines(
-                                        "Bug in @QualifierForLiterals(stringpatterns=...) in type hierarchy definition:",
-                                        " the glb of `matches` for \"" + string + "\" is " + res,
-                                        " which is a subtype of " + sam,
-                                        " whose pattern does not match \"" + string + "\".",
-                                        "  matches = " + matchesOnePerLine,
-                                        "  nonMatches = " + nonMatches));
-                    }
-                }
+            if (!res.isEmpty()) {
                 type.addAnnotations(res);
             }
         }
         return super.visitLiteral(tree, type);
     }
+
+    /**
+     * Returns the greatest lower bound of the annotations of all patterns that match {@code
+     * string}, or the empty set if no pattern matches it.
+     *
+     * @param string the value of a string literal
+     * @return the annotations for a string literal whose value is {@code string}
+     */
+    private Set<? extends AnnotationMirror> getStringPatternAnnotations(String string) {
+        List<Set<? extends AnnotationMirror>> matches = new ArrayList<>();
+        List<Set<? extends AnnotationMirror>> nonMatches = new ArrayList<>();
+
+        for (Pattern pattern : stringPatterns.keySet()) {
+            Set<AnnotationMirror> sam = stringPatterns.get(pattern);
+            if (pattern.matcher(string).matches()) {
+                matches.add(sam);
+            } else {
+                nonMatches.add(sam);
+            }
+        }
+        if (matches.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<? extends AnnotationMirror> res = matches.get(0);
+        for (Set<? extends AnnotationMirror> sam : matches) {
+            res = qualHierarchy.greatestLowerBounds(res, sam);
+        }
+        // Verify that res is not a subtype of any type in nonMatches
+        for (Set<? extends AnnotationMirror> sam : nonMatches) {
+            if (qualHierarchy.isSubtype(res, sam)) {
+                String matchesOnePerLine = "";
+                for (Set<? extends AnnotationMirror> match : matches) {
+                    matchesOnePerLine += System.lineSeparator() + "     " + match;
+                }
+                throw new BugInCF(
+                        UtilPlume.joinLines(
+                                "Bug in @QualifierForLiterals(stringpatterns=...) in type hierarchy definition:",
+                                " the glb of `matches` for \"" + string + "\" is " + res,
+                                " which is a subtype of " + sam,
+                                " whose pattern does not match \"" + string + "\".",
+                                "  matches = " + matchesOnePerLine,
+                                "  nonMatches = " + nonMatches));
+            }
+        }
+        return res;
+    }
 }
@@ -46,6 +46,7 @@ import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedWildcard
 import org.checkerframework.framework.type.AsSuperVisitor;
 import org.checkerframework.framework.type.QualifierHierarchy;
 import org.checkerframework.framework.type.SyntheticArrays;
+import org.checkerframework.framework.type.visitor.SimpleAnnotatedTypeScanner;
 import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.BugInCF;
 import org.checkerframework.javacutil.ElementUtils;
@@ -491,21 +492,81 @@ public class AnnotatedTypes {
         //      supertype of passed type)
         // 3. Substitute for type variables if any exist
         TypeElement enclosingClassOfMember = ElementUtils.enclosingClass(member);
-        final Map<TypeVariable, AnnotatedTypeMirror> mappings = new HashMap<>();
+        Map<TypeVariable, AnnotatedTypeMirror> mappings =
+                getTypeVarMappings(types, atypeFactory, of, enclosingClassOfMember);
+
+        if (!mappings.isEmpty()) {
+            memberType = atypeFactory.getTypeVarSubstitutor().substitute(mappings, memberType);
+        }
 
+        return memberType;
+    }
+
+    /**
+     * Returns the types to be substituted for the type variables of {@code enclosingClassOfMember}
+     * and of its enclosing classes, when one of its members is viewed as a member of {@code of}.
+     *
+     * <p>The result is cached by {@code atypeFactory}, keyed by the structure of {@code of}, unless
+     * {@code of} contains an uninferred type argument: {@link AnnotatedTypeMirror#equals} ignores
+     * whether a wildcard is uninferred, but the substitution does not. Clients must not modify the
+     * result; {@link org.checkerframework.framework.type.TypeVariableSubstitutor} copies the types
+     * that it substitutes.
+     *
+     * @param types the Types instance to use
+     * @param atypeFactory the type factory to use
+     * @param of the receiver type
+     * @param enclosingClassOfMember the class that declares the member, or null
+     * @return a map from type variables to the types to substitute for them
+     */
+    private static Map<TypeVariable, AnnotatedTypeMirror> getTypeVarMappings(
+            Types types,
+            AnnotatedTypeFactory atypeFactory,
+            AnnotatedTypeMirror of,
+            @Nullable TypeElement enclosingClassOfMember) {
+        if (enclosingClassOfMember == null) {
+            return Collections.emptyMap();
+        }
+        Map<Pair<AnnotatedTypeMirror, TypeElement>, Map<TypeVariable, AnnotatedTypeMirror>> cache =
+                atypeFactory.getTypeVarMappingsCache();
+        boolean useCache = cache != null && !containsUninferredTypeArgument(of);
+        if (useCache) {
+            Map<TypeVariable, AnnotatedTypeMirror> cached =
+                    cache.get(Pair.of(of, enclosingClassOfMember));
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        final Map<TypeVariable, AnnotatedTypeMirror> mappings = new HashMap<>();
         // Look for all enclosing classes that have type variables
         // and collect type to be substituted for those type variables
-        while (enclosingClassOfMember != null) {
-            addTypeVarMappings(types, atypeFactory, of, enclosingClassOfMember, mappings);
-            enclosingClassOfMember =
-                    ElementUtils.enclosingClass(enclosingClassOfMember.getEnclosingElement());
+        TypeElement enclosingClass = enclosingClassOfMember;
+        while (enclosingClass != null) {
+            addTypeVarMappings(types, atypeFactory, of, enclosingClass, mappings);
+            enclosingClass = ElementUtils.enclosingClass(enclosingClass.getEnclosingElement());
         }
 
-        if (!mappings.isEmpty()) {
-            memberType = atypeFactory.getTypeVarSubstitutor().substitute(mappings, memberType);
+        if (useCache) {
+            // The receiver type may be modified later, so the key is a copy.
+            cache.put(Pair.of(of.deepCopy(), enclosingClassOfMember), mappings);
         }
+        return mappings;
+    }
 
-        return memberType;
+    /**
+     * Returns true if {@code type} contains a wildcard that is an uninferred type argument.
+     *
+     * @param type a type
+     * @return true if {@code type} contains an uninferred type argument
+     */
+    private static boolean containsUninferredTypeArgument(AnnotatedTypeMirror type) {
+        return new SimpleAnnotatedTypeScanner<Boolean, Void>(
+                        (t, p) ->
+                                t.getKind() == TypeKind.WILDCARD
+                                        && ((AnnotatedWildcardType) t).isUninferredTypeArgument(),
+                        Boolean::logicalOr,
+                        false)
+                .visit(type);
     }
 
     private static void addTypeVarMappings(
@@ -19,7 +19,9 @@ import org.checkerframework.javacutil.AnnotationUtils;
  * AnnotationUtils.areSame(key, k))."
  *
  * <p>AnnotationMirror is an interface and not all implementing classes provide a correct equals
- * method; therefore, existing implementations of Map cannot be used.
+ * method; therefore, existing implementations of Map cannot be used. The backing map is ordered by
+ * {@link AnnotationUtils#compareAnnotationMirrors}, which returns 0 exactly when {@link
+ * AnnotationUtils#areSame} returns true, so lookups are binary searches.
  */
 public class AnnotationMirrorMap<V> implements Map<AnnotationMirror, V> {
 
@@ -54,7 +56,7 @@ public class AnnotationMirrorMap<V> implements Map<AnnotationMirror, V> {
     @Override
     public boolean containsKey(Object key) {
         if (key instanceof AnnotationMirror) {
-            return AnnotationUtils.containsSame(shadowMap.keySet(), (AnnotationMirror) key);
+            return shadowMap.containsKey(key);
         } else {
             return false;
         }
@@ -68,19 +70,15 @@ public class AnnotationMirrorMap<V> implements Map<AnnotationMirror, V> {
     @Override
     public V get(Object key) {
         if (key instanceof AnnotationMirror) {
-            AnnotationMirror keyAnno =
-                    AnnotationUtils.getSame(shadowMap.keySet(), (AnnotationMirror) key);
-            if (keyAnno != null) {
-                return shadowMap.get(keyAnno);
-            }
+            return shadowMap.get(key);
         }
         return null;
     }
 
     @Override
     public V put(AnnotationMirror key, V value) {
-        V pre = get(key);
-        remove(key);
+        // Remove any existing mapping first, so that the map retains the new key.
+        V pre = shadowMap.remove(key);
         shadowMap.put(key, value);
         return pre;
     }
@@ -88,11 +86,7 @@ public class AnnotationMirrorMap<V> implements Map<AnnotationMirror, V> {
     @Override
     public V remove(Object key) {
         if (key instanceof AnnotationMirror) {
-            AnnotationMirror keyAnno =
-                    AnnotationUtils.getSame(shadowMap.keySet(), (AnnotationMirror) key);
-            if (keyAnno != null) {
-                return shadowMap.remove(keyAnno);
-            }
+            return shadowMap.remove(key);
         }
         return null;
     }
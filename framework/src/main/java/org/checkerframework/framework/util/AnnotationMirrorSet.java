@@ -1,9 +1,11 @@
 package org.checkerframework.framework.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
 import javax.lang.model.element.AnnotationMirror;
 import org.checkerframework.javacutil.AnnotationUtils;
 
@@ -20,12 +22,15 @@ import org.checkerframework.javacutil.AnnotationUtils;
  *
  * <p>AnnotationMirror is an interface and not all implementing classes provide a correct equals
  * method; therefore, the existing implementations of Set cannot be used.
+ *
+ * <p>The elements are kept in a small array, sorted by {@link
+ * AnnotationUtils#compareAnnotationMirrors}, so iteration order is deterministic. Lookups first
+ * check for the identical AnnotationMirror and only then fall back to a binary search.
  */
 public class AnnotationMirrorSet implements Set<AnnotationMirror> {
 
-    /** Backing set. */
-    private Set<AnnotationMirror> shadowSet =
-            new TreeSet<>(AnnotationUtils::compareAnnotationMirrors);
+    /** Backing list, sorted by {@link AnnotationUtils#compareAnnotationMirrors}. */
+    private List<AnnotationMirror> shadowList = new ArrayList<>(2);
 
     /** Default constructor. */
     public AnnotationMirrorSet() {}
@@ -35,51 +40,73 @@ public class AnnotationMirrorSet implements Set<AnnotationMirror> {
         this.addAll(values);
     }
 
+    /**
+     * Returns the index of the element of this set that is the same as {@code anno}, according to
+     * {@link AnnotationUtils#areSame}. If there is no such element, returns {@code (-(insertion
+     * point) - 1)}, like {@link Collections#binarySearch(List, Object, java.util.Comparator)}.
+     *
+     * @param anno the annotation to search for
+     * @return the index of {@code anno} in {@link #shadowList}, or a negative value if absent
+     */
+    private int indexOf(AnnotationMirror anno) {
+        int size = shadowList.size();
+        for (int i = 0; i < size; i++) {
+            if (shadowList.get(i) == anno) {
+                return i;
+            }
+        }
+        return Collections.binarySearch(
+                shadowList, anno, AnnotationUtils::compareAnnotationMirrors);
+    }
+
     @Override
     public int size() {
-        return shadowSet.size();
+        return shadowList.size();
     }
 
     @Override
     public boolean isEmpty() {
-        return shadowSet.isEmpty();
+        return shadowList.isEmpty();
     }
 
     @Override
     public boolean contains(Object o) {
-        return o instanceof AnnotationMirror
-                && AnnotationUtils.containsSame(shadowSet, (AnnotationMirror) o);
+        return o instanceof AnnotationMirror && indexOf((AnnotationMirror) o) >= 0;
     }
 
     @Override
     public Iterator<AnnotationMirror> iterator() {
-        return shadowSet.iterator();
+        return shadowList.iterator();
     }
 
     @Override
     public Object[] toArray() {
-        return shadowSet.toArray();
+        return shadowList.toArray();
     }
 
     @Override
     public <T> T[] toArray(T[] a) {
-        return shadowSet.toArray(a);
+        return shadowList.toArray(a);
     }
 
     @Override
     public boolean add(AnnotationMirror annotationMirror) {
-        if (contains(annotationMirror)) {
+        int index = indexOf(annotationMirror);
+        if (index >= 0) {
             return false;
         }
-        shadowSet.add(annotationMirror);
+        shadowList.add(-(index + 1), annotationMirror);
         return true;
     }
 
     @Override
     public boolean remove(Object o) {
         if (o instanceof AnnotationMirror) {
-            AnnotationMirror found = AnnotationUtils.getSame(shadowSet, (AnnotationMirror) o);
-            return found != null && shadowSet.remove(found);
+            int index = indexOf((AnnotationMirror) o);
+            if (index >= 0) {
+                shadowList.remove(index);
+                return true;
+            }
         }
         return false;
     }
@@ -107,14 +134,14 @@ public class AnnotationMirrorSet implements Set<AnnotationMirror> {
 
     @Override
     public boolean retainAll(Collection<?> c) {
-        Set<AnnotationMirror> newSet = new TreeSet<>(AnnotationUtils::compareAnnotationMirrors);
+        AnnotationMirrorSet newSet = new AnnotationMirrorSet();
         for (Object o : c) {
             if (contains(o)) {
                 newSet.add((AnnotationMirror) o);
             }
         }
-        if (newSet.size() != shadowSet.size()) {
-            shadowSet = newSet;
+        if (newSet.size() != shadowList.size()) {
+            shadowList = newSet.shadowList;
             return true;
         }
         return false;
@@ -133,7 +160,7 @@ public class AnnotationMirrorSet implements Set<AnnotationMirror> {
 
     @Override
     public void clear() {
-        shadowSet.clear();
+        shadowList.clear();
     }
 
     /**
@@ -150,6 +177,6 @@ public class AnnotationMirrorSet implements Set<AnnotationMirror> {
 
     @Override
     public String toString() {
-        return shadowSet.toString();
+        return shadowList.toString();
     }
 }
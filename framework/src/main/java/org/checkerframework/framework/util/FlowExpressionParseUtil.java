@@ -75,6 +75,7 @@ import org.checkerframework.framework.source.DiagMessage;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.util.dependenttypes.DependentTypesError;
 import org.checkerframework.javacutil.ElementUtils;
+import org.checkerframework.javacutil.LRUCache;
 import org.checkerframework.javacutil.Resolver;
 import org.checkerframework.javacutil.TreeUtils;
 import org.checkerframework.javacutil.TypesUtils;
@@ -105,6 +106,19 @@ public class FlowExpressionParseUtil {
 
     private static final int PARAMETER_REPLACEMENT_LENGTH = PARMETER_REPLACEMENT.length();
 
+    /** The maximum number of entries in {@link #parsedExpressions}. */
+    private static final int PARSE_CACHE_SIZE = 5000;
+
+    /**
+     * Map from an expression string, after {@link #replaceParameterSyntax}, to its JavaParser AST.
+     * The same strings, such as the arguments of contract annotations, are parsed at every use of
+     * the annotated declaration; parsing is independent of the context, which is only consulted
+     * when the AST is converted to a {@link Receiver}. The ASTs must not be side-effected. Accesses
+     * must be synchronized on the cache, which is shared by all checkers in the JVM.
+     */
+    private static final LRUCache<String, Expression> parsedExpressions =
+            new LRUCache<>(PARSE_CACHE_SIZE);
+
     /**
      * Parse a string and return its representation as a {@link Receiver}, or throw an {@link
      * FlowExpressionParseException}.
@@ -121,10 +135,14 @@ public class FlowExpressionParseUtil {
             boolean useLocalScope)
             throws FlowExpressionParseException {
         context = context.copyAndSetUseLocalScope(useLocalScope);
+        Receiver parameter = parseParameter(expression, context);
+        if (parameter != null) {
+            return parameter;
+        }
         ProcessingEnvironment env = context.checkerContext.getProcessingEnvironment();
         Expression expr;
         try {
-            expr = StaticJavaParser.parseExpression(replaceParameterSyntax(expression));
+            expr = parseExpression(replaceParameterSyntax(expression));
         } catch (ParseProblemException e) {
             throw constructParserException(expression, "is an invalid expression");
         }
@@ -151,11 +169,78 @@ public class FlowExpressionParseUtil {
         return result;
     }
 
+    /**
+     * If {@code expression} is a reference to a formal parameter, such as "#2", that is valid in
+     * {@code context}, returns the corresponding argument without parsing {@code expression}.
+     * Viewpoint adaptation of dependent types at method invocations mostly parses such strings.
+     *
+     * @param expression a flow expression string
+     * @param context the context in which {@code expression} is parsed
+     * @return the receiver of the parameter referenced by {@code expression}, or null if {@code
+     *     expression} must be parsed; in particular, null if it is an invalid parameter reference,
+     *     so that parsing reports the error
+     */
+    private static @Nullable Receiver parseParameter(
+            String expression, FlowExpressionContext context) {
+        if (context.arguments == null
+                || context.parsingMember
+                || expression.length() > 10
+                || !expression.startsWith("#")) {
+            return null;
+        }
+        Matcher matcher = ANCHORED_PARAMETER_PATTERN.matcher(expression);
+        if (!matcher.matches()) {
+            return null;
+        }
+        int idx = Integer.parseInt(matcher.group(1));
+        if (idx > context.arguments.size()) {
+            return null;
+        }
+        return context.arguments.get(idx - 1);
+    }
+
+    /**
+     * Parses a Java expression with JavaParser, or returns the cached result of parsing it before.
+     *
+     * @param expression a Java expression, in which parameters are written as
+     *     "PARAMETER_REPLACEMENT(number)"
+     * @return the JavaParser AST of {@code expression}, which must not be side-effected
+     * @throws ParseProblemException if {@code expression} cannot be parsed; failures are not cached
+     */
+    private static Expression parseExpression(String expression) {
+        synchronized (parsedExpressions) {
+            Expression cached = parsedExpressions.get(expression);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Expression result = StaticJavaParser.parseExpression(expression);
+        synchronized (parsedExpressions) {
+            parsedExpressions.put(expression, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a one-line summary of the effectiveness of the cache of parsed expressions, for
+     * debugging output.
+     *
+     * @return a summary of the hits and misses of the cache of parsed expressions
+     */
+    public static String getCacheStatistics() {
+        synchronized (parsedExpressions) {
+            return "parsed flow expressions: " + parsedExpressions.statistics();
+        }
+    }
+
     /**
      * Replaces every occurrence of "#(number)" with "PARAMETER_REPLACEMENT(number)" where number is
      * an index of a parameter.
      */
     private static String replaceParameterSyntax(String expression) {
+        if (expression.indexOf('#') == -1) {
+            return expression;
+        }
         String updatedExpression = expression;
 
         for (Integer integer : parameterIndices(expression)) {
@@ -589,7 +674,7 @@ public class FlowExpressionParseUtil {
         private @Nullable TypeMirror convertTypeToTypeMirror(
                 Type type, FlowExpressionContext context) {
             if (type.isClassOrInterfaceType()) {
-                return StaticJavaParser.parseExpression(type.asString())
+                return parseExpression(type.asString())
                         .accept(this, context)
                         .getType();
             } else if (type.isPrimitiveType()) {
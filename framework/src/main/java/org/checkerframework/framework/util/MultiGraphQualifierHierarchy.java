@@ -1,10 +1,13 @@
 package org.checkerframework.framework.util;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -12,6 +15,7 @@ import java.util.StringJoiner;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.Name;
+import javax.lang.model.util.ElementFilter;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.dataflow.qual.Pure;
 import org.checkerframework.dataflow.qual.SideEffectFree;
@@ -227,6 +231,70 @@ public class MultiGraphQualifierHierarchy implements QualifierHierarchy {
     /** All qualifiers, including polymorphic qualifiers. */
     private final Set<AnnotationMirror> typeQualifiers;
 
+    // The "compiled" form of the hierarchy. Each qualifier in the hierarchy whose annotation type
+    // has no elements gets a dense integer id. For such qualifiers, subtyping is a bit test, and
+    // lub, glb, top, and bottom are array lookups that are filled in on first use. Qualifiers
+    // with elements always use the general algorithms. The lub, glb, top, and bottom tables are
+    // used only if no subclass overrides a method whose result they would memoize; see
+    // useCompiledBounds.
+
+    /** Map from the name of each qualifier without elements to its dense id. */
+    private final Map<String, Integer> compiledIds;
+
+    /** The qualifier for each dense id; the inverse of {@link #compiledIds}. */
+    private final AnnotationMirror[] compiledQualifiers;
+
+    /**
+     * For each dense id, a bit set (indexed by dense id) of its proper transitive supertypes that
+     * have dense ids.
+     */
+    private final long[][] compiledSupertypes;
+
+    /**
+     * The memoized lub of each pair of dense ids, encoded as described at {@link #UNKNOWN_BOUND}.
+     */
+    private final int[][] compiledLubs;
+
+    /**
+     * The memoized glb of each pair of dense ids, encoded as described at {@link #UNKNOWN_BOUND}.
+     */
+    private final int[][] compiledGlbs;
+
+    /** The memoized top qualifier for each dense id; null if not yet computed. */
+    private final AnnotationMirror[] compiledTops;
+
+    /** The memoized bottom qualifier for each dense id; null if not yet computed. */
+    private final AnnotationMirror[] compiledBottoms;
+
+    /**
+     * True if {@link #compiledLubs}, {@link #compiledGlbs}, {@link #compiledTops}, and {@link
+     * #compiledBottoms} may be used. False if the class of this hierarchy overrides one of the
+     * methods whose results they memoize, or {@link #isSubtype(AnnotationMirror,
+     * AnnotationMirror)}, which those results are computed from: an overriding method may answer
+     * differently from one call to the next, or differently from the graph.
+     */
+    private final boolean useCompiledBounds;
+
+    /**
+     * An entry in {@link #compiledLubs} or {@link #compiledGlbs} that has not been computed, or
+     * whose value cannot be represented by a dense id. The other possible entries are {@link
+     * #NO_BOUND}, {@link #FIRST_BOUND}, {@link #SECOND_BOUND}, and a dense id plus {@link
+     * #ID_BOUND_OFFSET}.
+     */
+    private static final int UNKNOWN_BOUND = 0;
+
+    /** An entry in {@link #compiledLubs} or {@link #compiledGlbs} that represents null. */
+    private static final int NO_BOUND = 1;
+
+    /** An entry in {@link #compiledLubs} or {@link #compiledGlbs} for the first argument. */
+    private static final int FIRST_BOUND = 2;
+
+    /** An entry in {@link #compiledLubs} or {@link #compiledGlbs} for the second argument. */
+    private static final int SECOND_BOUND = 3;
+
+    /** Added to a dense id to form an entry in {@link #compiledLubs} or {@link #compiledGlbs}. */
+    private static final int ID_BOUND_OFFSET = 4;
+
     public MultiGraphQualifierHierarchy(MultiGraphFactory f) {
         this(f, (Object[]) null);
     }
@@ -260,9 +328,133 @@ public class MultiGraphQualifierHierarchy implements QualifierHierarchy {
         Set<AnnotationMirror> typeQualifiers = AnnotationUtils.createAnnotationSet();
         typeQualifiers.addAll(supertypesTransitive.keySet());
         this.typeQualifiers = Collections.unmodifiableSet(typeQualifiers);
+
+        this.compiledIds = new HashMap<>();
+        List<AnnotationMirror> compiled = new ArrayList<>();
+        for (AnnotationMirror qual : typeQualifiers) {
+            if (ElementFilter.methodsIn(qual.getAnnotationType().asElement().getEnclosedElements())
+                    .isEmpty()) {
+                compiledIds.put(AnnotationUtils.annotationName(qual), compiled.size());
+                compiled.add(qual);
+            }
+        }
+        int numCompiled = compiled.size();
+        this.compiledQualifiers = compiled.toArray(new AnnotationMirror[numCompiled]);
+        this.compiledSupertypes = new long[numCompiled][(numCompiled + 63) >>> 6];
+        for (int id = 0; id < numCompiled; id++) {
+            for (AnnotationMirror sup : supertypesTransitive.get(compiledQualifiers[id])) {
+                int supId = compiledId(sup);
+                if (supId >= 0) {
+                    compiledSupertypes[id][supId >>> 6] |= 1L << supId;
+                }
+            }
+        }
+        this.compiledLubs = new int[numCompiled][numCompiled];
+        this.compiledGlbs = new int[numCompiled][numCompiled];
+        this.compiledTops = new AnnotationMirror[numCompiled];
+        this.compiledBottoms = new AnnotationMirror[numCompiled];
+        this.useCompiledBounds = !overridesBoundMethods(getClass());
         // System.out.println("MGH: " + this);
     }
 
+    /**
+     * Returns true if {@code hierarchyClass} or one of its superclasses below
+     * MultiGraphQualifierHierarchy overrides a method whose result is memoized in the compiled
+     * tables, or isSubtype.
+     *
+     * @param hierarchyClass the class of a qualifier hierarchy
+     * @return true if {@code hierarchyClass} overrides isSubtype, leastUpperBound,
+     *     greatestLowerBound, getTopAnnotation, or getBottomAnnotation for qualifiers
+     */
+    private static boolean overridesBoundMethods(Class<?> hierarchyClass) {
+        for (Class<?> c = hierarchyClass;
+                c != MultiGraphQualifierHierarchy.class;
+                c = c.getSuperclass()) {
+            for (Method m : c.getDeclaredMethods()) {
+                Class<?>[] params = m.getParameterTypes();
+                switch (m.getName()) {
+                    case "isSubtype":
+                    case "leastUpperBound":
+                    case "greatestLowerBound":
+                        if (params.length == 2
+                                && params[0] == AnnotationMirror.class
+                                && params[1] == AnnotationMirror.class) {
+                            return true;
+                        }
+                        break;
+                    case "getTopAnnotation":
+                    case "getBottomAnnotation":
+                        if (params.length == 1 && params[0] == AnnotationMirror.class) {
+                            return true;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the dense id of {@code anno}, or -1 if {@code anno} does not have one because it is
+     * not in the hierarchy or because its annotation type has elements.
+     *
+     * @param anno a qualifier, or null
+     * @return the dense id of {@code anno}, or -1
+     */
+    private int compiledId(@Nullable AnnotationMirror anno) {
+        if (anno == null) {
+            return -1;
+        }
+        Integer id = compiledIds.get(AnnotationUtils.annotationName(anno));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Encodes a lub or glb result for storage in {@link #compiledLubs} or {@link #compiledGlbs}.
+     *
+     * @param result the lub or glb of {@code a1} and {@code a2}
+     * @param a1 the first argument of the lub or glb
+     * @param a2 the second argument of the lub or glb
+     * @return the encoding of {@code result}; {@link #UNKNOWN_BOUND} if it cannot be encoded
+     */
+    private int encodeBound(
+            @Nullable AnnotationMirror result, AnnotationMirror a1, AnnotationMirror a2) {
+        if (result == null) {
+            return NO_BOUND;
+        } else if (result == a1) {
+            return FIRST_BOUND;
+        } else if (result == a2) {
+            return SECOND_BOUND;
+        }
+        int id = compiledId(result);
+        return id < 0 ? UNKNOWN_BOUND : id + ID_BOUND_OFFSET;
+    }
+
+    /**
+     * Decodes an entry of {@link #compiledLubs} or {@link #compiledGlbs} other than {@link
+     * #UNKNOWN_BOUND}.
+     *
+     * @param encoded the encoded lub or glb of {@code a1} and {@code a2}
+     * @param a1 the first argument of the lub or glb
+     * @param a2 the second argument of the lub or glb
+     * @return the lub or glb of {@code a1} and {@code a2}
+     */
+    private @Nullable AnnotationMirror decodeBound(
+            int encoded, AnnotationMirror a1, AnnotationMirror a2) {
+        switch (encoded) {
+            case NO_BOUND:
+                return null;
+            case FIRST_BOUND:
+                return a1;
+            case SECOND_BOUND:
+                return a2;
+            default:
+                return compiledQualifiers[encoded - ID_BOUND_OFFSET];
+        }
+    }
+
     @Override
     public boolean isValid() {
         return !typeQualifiers.isEmpty();
@@ -326,6 +518,25 @@ public class MultiGraphQualifierHierarchy implements QualifierHierarchy {
 
     @Override
     public AnnotationMirror getTopAnnotation(AnnotationMirror start) {
+        int id = useCompiledBounds ? compiledId(start) : -1;
+        if (id >= 0) {
+            AnnotationMirror top = compiledTops[id];
+            if (top == null) {
+                top = findTopAnnotation(start);
+                compiledTops[id] = top;
+            }
+            return top;
+        }
+        return findTopAnnotation(start);
+    }
+
+    /**
+     * Computes the result of {@link #getTopAnnotation}, without using {@link #compiledTops}.
+     *
+     * @param start any qualifier in the hierarchy
+     * @return the top qualifier of {@code start}'s hierarchy
+     */
+    private AnnotationMirror findTopAnnotation(AnnotationMirror start) {
         for (AnnotationMirror top : tops) {
             if (AnnotationUtils.areSame(start, top) || isSubtype(start, top)) {
                 return top;
@@ -345,6 +556,25 @@ public class MultiGraphQualifierHierarchy implements QualifierHierarchy {
 
     @Override
     public AnnotationMirror getBottomAnnotation(AnnotationMirror start) {
+        int id = useCompiledBounds ? compiledId(start) : -1;
+        if (id >= 0) {
+            AnnotationMirror bottom = compiledBottoms[id];
+            if (bottom == null) {
+                bottom = findBottomAnnotation(start);
+                compiledBottoms[id] = bottom;
+            }
+            return bottom;
+        }
+        return findBottomAnnotation(start);
+    }
+
+    /**
+     * Computes the result of {@link #getBottomAnnotation}, without using {@link #compiledBottoms}.
+     *
+     * @param start any qualifier in the hierarchy
+     * @return the bottom qualifier of {@code start}'s hierarchy
+     */
+    private AnnotationMirror findBottomAnnotation(AnnotationMirror start) {
         for (AnnotationMirror bot : bottoms) {
             if (AnnotationUtils.areSame(start, bot) || isSubtype(bot, start)) {
                 return bot;
@@ -406,6 +636,33 @@ public class MultiGraphQualifierHierarchy implements QualifierHierarchy {
 
     @Override
     public AnnotationMirror leastUpperBound(AnnotationMirror a1, AnnotationMirror a2) {
+        if (!useCompiledBounds) {
+            return computeLeastUpperBound(a1, a2);
+        }
+        int id1 = compiledId(a1);
+        int id2 = compiledId(a2);
+        if (id1 < 0 || id2 < 0) {
+            return computeLeastUpperBound(a1, a2);
+        }
+        int encoded = compiledLubs[id1][id2];
+        if (encoded != UNKNOWN_BOUND) {
+            return decodeBound(encoded, a1, a2);
+        }
+        AnnotationMirror lub = computeLeastUpperBound(a1, a2);
+        compiledLubs[id1][id2] = encodeBound(lub, a1, a2);
+        return lub;
+    }
+
+    /**
+     * Computes the result of {@link #leastUpperBound(AnnotationMirror, AnnotationMirror)}, without
+     * using {@link #compiledLubs}.
+     *
+     * @param a1 the first qualifier
+     * @param a2 the second qualifier
+     * @return the least upper bound of {@code a1} and {@code a2}, or null if they are in different
+     *     hierarchies
+     */
+    private AnnotationMirror computeLeastUpperBound(AnnotationMirror a1, AnnotationMirror a2) {
         if (!AnnotationUtils.areSameByName(getTopAnnotation(a1), getTopAnnotation(a2))) {
             return null;
         } else if (isSubtype(a1, a2)) {
@@ -427,6 +684,33 @@ public class MultiGraphQualifierHierarchy implements QualifierHierarchy {
 
     @Override
     public AnnotationMirror greatestLowerBound(AnnotationMirror a1, AnnotationMirror a2) {
+        if (!useCompiledBounds) {
+            return computeGreatestLowerBound(a1, a2);
+        }
+        int id1 = compiledId(a1);
+        int id2 = compiledId(a2);
+        if (id1 < 0 || id2 < 0) {
+            return computeGreatestLowerBound(a1, a2);
+        }
+        int encoded = compiledGlbs[id1][id2];
+        if (encoded != UNKNOWN_BOUND) {
+            return decodeBound(encoded, a1, a2);
+        }
+        AnnotationMirror glb = computeGreatestLowerBound(a1, a2);
+        compiledGlbs[id1][id2] = encodeBound(glb, a1, a2);
+        return glb;
+    }
+
+    /**
+     * Computes the result of {@link #greatestLowerBound(AnnotationMirror, AnnotationMirror)},
+     * without using {@link #compiledGlbs}.
+     *
+     * @param a1 the first qualifier
+     * @param a2 the second qualifier
+     * @return the greatest lower bound of {@code a1} and {@code a2}, or null if they are in
+     *     different hierarchies
+     */
+    private AnnotationMirror computeGreatestLowerBound(AnnotationMirror a1, AnnotationMirror a2) {
         if (AnnotationUtils.areSameByName(a1, a2)) {
             return AnnotationUtils.sameElementValues(a1, a2) ? a1 : getBottomAnnotation(a1);
         }
@@ -451,6 +735,16 @@ public class MultiGraphQualifierHierarchy implements QualifierHierarchy {
      */
     @Override
     public boolean isSubtype(AnnotationMirror subAnno, AnnotationMirror superAnno) {
+        // Only qualifiers in the graph have dense ids, so checkAnnoInGraph would succeed for both.
+        // The bit sets are computed from the graph alone, so this is the graph's answer even when
+        // a subclass overrides this method and calls it through super.
+        int subId = compiledId(subAnno);
+        int superId = compiledId(superAnno);
+        if (subId >= 0 && superId >= 0) {
+            return subId == superId
+                    || (compiledSupertypes[subId][superId >>> 6] & (1L << superId)) != 0;
+        }
+
         checkAnnoInGraph(subAnno);
         checkAnnoInGraph(superAnno);
 
@@ -0,0 +1,463 @@
+package org.checkerframework.framework.util;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.javacutil.BugInCF;
+import org.checkerframework.javacutil.UserError;
+
+/**
+ * Measures how much wall-clock time, CPU time, and memory allocation each phase of a checker
+ * costs. It is enabled by the {@code -Aprofile} command-line option; otherwise every method is a
+ * no-op that returns immediately.
+ *
+ * <p>Phases nest: for example, the visitor requests the type of a tree, which runs dataflow
+ * analysis, which builds a control flow graph. Each phase is charged only for its <em>own</em>
+ * cost, excluding the cost of the phases nested in it, so the costs of all phases add up to the
+ * total cost. The nesting itself is recorded in folded-stack form, one line per distinct stack of
+ * phases, which flame-graph tools accept as input.
+ *
+ * <p>In addition, the profiler records the wall-clock time spent checking each top-level class
+ * and each method, to report the slowest ones.
+ *
+ * <p>A checker and each of its subcheckers have their own profiler. See {@link #report}.
+ */
+public final class PhaseProfiler {
+
+    /** A phase of type-checking. */
+    public enum Phase {
+        /** Parsing stub files, including the annotated JDK. */
+        STUB_PARSING("stub parsing"),
+        /** Building control flow graphs. */
+        CFG_CONSTRUCTION("CFG construction"),
+        /** Running dataflow analysis to a fixpoint. */
+        DATAFLOW("dataflow"),
+        /** Applying tree annotators and type annotators. */
+        TREE_ANNOTATION("tree annotation"),
+        /** Applying defaults. */
+        DEFAULTS("defaults"),
+        /** Visiting the trees of a class and checking the type rules. */
+        VISITOR("visitor"),
+        /** Checking whether one annotated type is a subtype of another. */
+        SUBTYPE_TESTS("subtype tests");
+
+        /** The human-readable name of this phase. */
+        public final String description;
+
+        /**
+         * Creates a phase.
+         *
+         * @param description the human-readable name of the phase
+         */
+        Phase(String description) {
+            this.description = description;
+        }
+    }
+
+    /** The number of slowest classes and methods to report. */
+    private static final int TOP_N = 10;
+
+    /** The profiler that measures nothing. */
+    private static final PhaseProfiler DISABLED = new PhaseProfiler(false);
+
+    /** True if this profiler measures anything. */
+    private final boolean enabled;
+
+    /** The bean used to read the CPU time and allocated bytes of the current thread. */
+    private final @Nullable ThreadMXBean threadBean;
+
+    /** The costs of each phase, excluding nested phases. */
+    private final Map<Phase, Cost> costs = new EnumMap<>(Phase.class);
+
+    /** Map from a stack of phases, in folded-stack form, to its own wall-clock nanoseconds. */
+    private final Map<String, Long> foldedStacks = new HashMap<>();
+
+    /** The phases that have started but not yet stopped, innermost last. */
+    private final List<Frame> stack = new ArrayList<>();
+
+    /** Map from the name of a top-level class to the wall-clock nanoseconds spent checking it. */
+    private final Map<String, Long> classTimes = new HashMap<>();
+
+    /** Map from the name of a method to the wall-clock nanoseconds spent checking it. */
+    private final Map<String, Long> methodTimes = new HashMap<>();
+
+    /**
+     * Creates a profiler.
+     *
+     * @param enabled whether the profiler measures anything
+     */
+    private PhaseProfiler(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled) {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            this.threadBean = bean.isCurrentThreadCpuTimeSupported() ? bean : null;
+        } else {
+            this.threadBean = null;
+        }
+    }
+
+    /**
+     * Returns a new profiler if {@code enabled} is true, or else a profiler that measures nothing.
+     *
+     * @param enabled whether the profiler should measure anything
+     * @return a profiler
+     */
+    public static PhaseProfiler create(boolean enabled) {
+        return enabled ? new PhaseProfiler(true) : DISABLED;
+    }
+
+    /**
+     * Returns true if this profiler measures anything.
+     *
+     * @return true if this profiler measures anything
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** The costs of a phase. */
+    private static final class Cost {
+        /** The number of times the phase was entered. */
+        long calls;
+        /** Wall-clock nanoseconds. */
+        long wallNanos;
+        /** CPU nanoseconds. */
+        long cpuNanos;
+        /** Allocated bytes. */
+        long allocatedBytes;
+    }
+
+    /** A phase that has started but not yet stopped. */
+    private static final class Frame {
+        /** The phase. */
+        final Phase phase;
+        /** The folded stack of phases ending in this one. */
+        final String foldedStack;
+        /** Wall-clock nanoseconds when the phase started. */
+        final long startWall;
+        /** CPU nanoseconds when the phase started. */
+        final long startCpu;
+        /** Allocated bytes when the phase started. */
+        final long startAllocated;
+        /** The total costs of the phases nested in this one. */
+        final Cost nested = new Cost();
+
+        /**
+         * Creates a frame.
+         *
+         * @param phase the phase
+         * @param foldedStack the folded stack of phases ending in this one
+         * @param startWall wall-clock nanoseconds when the phase started
+         * @param startCpu CPU nanoseconds when the phase started
+         * @param startAllocated allocated bytes when the phase started
+         */
+        Frame(
+                Phase phase,
+                String foldedStack,
+                long startWall,
+                long startCpu,
+                long startAllocated) {
+            this.phase = phase;
+            this.foldedStack = foldedStack;
+            this.startWall = startWall;
+            this.startCpu = startCpu;
+            this.startAllocated = startAllocated;
+        }
+    }
+
+    /**
+     * Starts measuring a phase. Every call must be matched by a call to {@link #stop} with the same
+     * phase, normally in a {@code finally} block.
+     *
+     * @param phase the phase that is starting
+     */
+    public void start(Phase phase) {
+        if (!enabled) {
+            return;
+        }
+        String foldedStack =
+                stack.isEmpty()
+                        ? phase.description
+                        : stack.get(stack.size() - 1).foldedStack + ";" + phase.description;
+        stack.add(new Frame(phase, foldedStack, System.nanoTime(), cpuTime(), allocatedBytes()));
+    }
+
+    /**
+     * Stops measuring a phase.
+     *
+     * @param phase the phase that is ending; must be the most recently started phase that has not
+     *     been stopped
+     * @return the wall-clock nanoseconds spent in the phase, including nested phases; 0 if this
+     *     profiler is not enabled
+     */
+    public long stop(Phase phase) {
+        if (!enabled) {
+            return 0;
+        }
+        Frame frame = stack.remove(stack.size() - 1);
+        if (frame.phase != phase) {
+            throw new BugInCF("PhaseProfiler: stopped %s while in %s", phase, frame.phase);
+        }
+        long wall = System.nanoTime() - frame.startWall;
+        long cpu = cpuTime() - frame.startCpu;
+        long allocated = allocatedBytes() - frame.startAllocated;
+
+        Cost cost = costs.computeIfAbsent(phase, p -> new Cost());
+        cost.calls++;
+        cost.wallNanos += wall - frame.nested.wallNanos;
+        cost.cpuNanos += cpu - frame.nested.cpuNanos;
+        cost.allocatedBytes += allocated - frame.nested.allocatedBytes;
+        foldedStacks.merge(frame.foldedStack, wall - frame.nested.wallNanos, Long::sum);
+
+        if (!stack.isEmpty()) {
+            Cost parent = stack.get(stack.size() - 1).nested;
+            parent.wallNanos += wall;
+            parent.cpuNanos += cpu;
+            parent.allocatedBytes += allocated;
+        }
+        return wall;
+    }
+
+    /**
+     * Returns the current time, for a later call to {@link #recordMethod}.
+     *
+     * @return the current value of {@link System#nanoTime}, or 0 if this profiler is not enabled
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time spent checking a top-level class.
+     *
+     * @param className the fully-qualified name of the class
+     * @param wallNanos the wall-clock nanoseconds spent checking the class
+     */
+    public void recordClass(String className, long wallNanos) {
+        if (enabled) {
+            classTimes.merge(className, wallNanos, Long::sum);
+        }
+    }
+
+    /**
+     * Records the time spent checking a method.
+     *
+     * @param methodName the name of the method, including the name of its class
+     * @param startNanos the value returned by {@link #startTimer} before the method was checked
+     */
+    public void recordMethod(String methodName, long startNanos) {
+        if (enabled) {
+            methodTimes.merge(methodName, System.nanoTime() - startNanos, Long::sum);
+        }
+    }
+
+    /**
+     * Returns the CPU time of the current thread.
+     *
+     * @return the CPU time of the current thread in nanoseconds, or 0 if it is not available
+     */
+    private long cpuTime() {
+        return threadBean == null ? 0 : threadBean.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread.
+     *
+     * @return the number of bytes allocated by the current thread, or 0 if it is not available
+     */
+    private long allocatedBytes() {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Prints a summary of the given profilers to {@code out}. If {@code outputDir} is non-null,
+     * also writes the complete results to {@code profile.json} and the folded stacks to {@code
+     * profile.folded} in that directory.
+     *
+     * @param profilers map from the name of a checker to its profiler, in the order in which the
+     *     checkers run
+     * @param outputDir the directory in which to write the result files, or null
+     * @param out where to print the summary
+     */
+    public static void report(
+            Map<String, PhaseProfiler> profilers, @Nullable String outputDir, PrintStream out) {
+        for (Map.Entry<String, PhaseProfiler> entry : profilers.entrySet()) {
+            entry.getValue().printSummary(entry.getKey(), out);
+        }
+        if (outputDir == null || outputDir.isEmpty()) {
+            return;
+        }
+        Path dir = Paths.get(outputDir);
+        try {
+            Files.createDirectories(dir);
+            try (Writer json =
+                    Files.newBufferedWriter(dir.resolve("profile.json"), StandardCharsets.UTF_8)) {
+                json.write(toJson(profilers));
+            }
+            try (Writer folded =
+                    Files.newBufferedWriter(
+                            dir.resolve("profile.folded"), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, PhaseProfiler> entry : profilers.entrySet()) {
+                    for (Map.Entry<String, Long> stack :
+                            new TreeMap<>(entry.getValue().foldedStacks).entrySet()) {
+                        long micros = stack.getValue() / 1000;
+                        if (micros > 0) {
+                            folded.write(
+                                    entry.getKey() + ";" + stack.getKey() + " " + micros + "\n");
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UserError("Cannot write profile to " + dir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Prints a summary of this profiler's measurements.
+     *
+     * @param checkerName the name of the checker that this profiler belongs to
+     * @param out where to print the summary
+     */
+    private void printSummary(String checkerName, PrintStream out) {
+        out.println("Profile of " + checkerName + " (own cost of each phase):");
+        out.printf(
+                "  %-18s %10s %12s %12s %14s%n", "phase", "calls", "wall ms", "cpu ms", "alloc MB");
+        for (Map.Entry<Phase, Cost> entry : costs.entrySet()) {
+            Cost cost = entry.getValue();
+            out.printf(
+                    "  %-18s %10d %12.1f %12.1f %14.1f%n",
+                    entry.getKey().description,
+                    cost.calls,
+                    cost.wallNanos / 1e6,
+                    cost.cpuNanos / 1e6,
+                    cost.allocatedBytes / (1024.0 * 1024.0));
+        }
+        printSlowest("classes", classTimes, out);
+        printSlowest("methods", methodTimes, out);
+    }
+
+    /**
+     * Prints the {@link #TOP_N} entries of {@code times} with the largest values.
+     *
+     * @param what what the keys of {@code times} are, for the heading
+     * @param times map from a name to wall-clock nanoseconds
+     * @param out where to print
+     */
+    private static void printSlowest(String what, Map<String, Long> times, PrintStream out) {
+        if (times.isEmpty()) {
+            return;
+        }
+        out.println("  Slowest " + what + " (wall ms):");
+        for (Map.Entry<String, Long> entry : slowest(times)) {
+            out.printf("    %12.1f  %s%n", entry.getValue() / 1e6, entry.getKey());
+        }
+    }
+
+    /**
+     * Returns the {@link #TOP_N} entries of {@code times} with the largest values, largest first.
+     *
+     * @param times map from a name to wall-clock nanoseconds
+     * @return the entries of {@code times} with the largest values
+     */
+    private static List<Map.Entry<String, Long>> slowest(Map<String, Long> times) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(times.entrySet());
+        entries.sort(
+                (a, b) -> {
+                    int byTime = Long.compare(b.getValue(), a.getValue());
+                    return byTime != 0 ? byTime : a.getKey().compareTo(b.getKey());
+                });
+        return entries.subList(0, Math.min(TOP_N, entries.size()));
+    }
+
+    /**
+     * Returns the measurements of the given profilers as a JSON object.
+     *
+     * @param profilers map from the name of a checker to its profiler
+     * @return a JSON object whose keys are checker names
+     */
+    private static String toJson(Map<String, PhaseProfiler> profilers) {
+        StringJoiner checkers = new StringJoiner(",\n", "{\n", "\n}\n");
+        for (Map.Entry<String, PhaseProfiler> entry : profilers.entrySet()) {
+            PhaseProfiler profiler = entry.getValue();
+            StringJoiner phases = new StringJoiner(",\n", "{\n", "\n    }");
+            for (Map.Entry<Phase, Cost> cost : profiler.costs.entrySet()) {
+                phases.add(
+                        String.format(
+                                "      %s: {\"calls\": %d, \"wallNanos\": %d, \"cpuNanos\": %d,"
+                                        + " \"allocatedBytes\": %d}",
+                                jsonString(cost.getKey().description),
+                                cost.getValue().calls,
+                                cost.getValue().wallNanos,
+                                cost.getValue().cpuNanos,
+                                cost.getValue().allocatedBytes));
+            }
+            checkers.add(
+                    "  "
+                            + jsonString(entry.getKey())
+                            + ": {\n    \"phases\": "
+                            + phases
+                            + ",\n    \"slowestClasses\": "
+                            + timesToJson(profiler.classTimes)
+                            + ",\n    \"slowestMethods\": "
+                            + timesToJson(profiler.methodTimes)
+                            + "\n  }");
+        }
+        return checkers.toString();
+    }
+
+    /**
+     * Returns the slowest entries of {@code times} as a JSON object.
+     *
+     * @param times map from a name to wall-clock nanoseconds
+     * @return a JSON object from names to wall-clock nanoseconds
+     */
+    private static String timesToJson(Map<String, Long> times) {
+        StringJoiner result = new StringJoiner(", ", "{", "}");
+        for (Map.Entry<String, Long> entry : slowest(times)) {
+            result.add(jsonString(entry.getKey()) + ": " + entry.getValue());
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns {@code s} as a JSON string literal.
+     *
+     * @param s a string
+     * @return a JSON string literal whose value is {@code s}
+     */
+    private static String jsonString(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+}
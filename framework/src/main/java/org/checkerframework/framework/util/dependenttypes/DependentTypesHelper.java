@@ -32,6 +32,7 @@ import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.dataflow.analysis.FlowExpressions;
 import org.checkerframework.dataflow.analysis.FlowExpressions.Receiver;
 import org.checkerframework.framework.qual.JavaExpression;
@@ -86,8 +87,17 @@ public class DependentTypesHelper {
     /** A map of annotation classes to the names of their elements that are Java expressions. */
     private Map<Class<? extends Annotation>, List<String>> annoToElements;
 
+    /**
+     * Maps a method or constructor to whether its declared type contains a dependent type
+     * annotation. Most invoked methods have none, and consulting this map spares computing and
+     * scanning their declared type at every invocation. Null if the factory does not cache.
+     */
+    private final @Nullable Map<Element, Boolean> executableHasDependentType;
+
     public DependentTypesHelper(AnnotatedTypeFactory factory) {
         this.factory = factory;
+        this.executableHasDependentType =
+                factory.shouldCache ? factory.createCache(factory.getCacheSize()) : null;
 
         this.annoToElements = new HashMap<>();
         for (Class<? extends Annotation> expressionAnno : factory.getSupportedTypeQualifiers()) {
@@ -184,9 +194,17 @@ public class DependentTypesHelper {
             List<? extends ExpressionTree> args) {
 
         Element element = TreeUtils.elementFromUse(tree);
+        if (executableHasDependentType != null
+                && executableHasDependentType.get(element) == Boolean.FALSE) {
+            return;
+        }
         AnnotatedExecutableType viewpointAdaptedType =
                 (AnnotatedExecutableType) factory.getAnnotatedType(element);
-        if (!hasDependentType(viewpointAdaptedType)) {
+        boolean hasDependentType = hasDependentType(viewpointAdaptedType);
+        if (executableHasDependentType != null) {
+            executableHasDependentType.put(element, hasDependentType);
+        }
+        if (!hasDependentType) {
             return;
         }
 
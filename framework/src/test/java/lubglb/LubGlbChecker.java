@@ -1,5 +1,8 @@
 package lubglb;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.util.Elements;
 import lubglb.quals.A;
@@ -70,5 +73,106 @@ public class LubGlbChecker extends BaseTypeChecker {
                 : "LUB of POLY and F is not POLY!";
         assert AnnotationUtils.areSame(qh.leastUpperBound(POLY, A), A)
                 : "LUB of POLY and A is not A!";
+
+        // The hierarchy memoizes the lub and glb of qualifiers without elements. Compare every
+        // pair, twice so that the second round reads the memoized results, against a walk of
+        // the graph drawn above.
+        AnnotationMirror[] quals = {A, B, C, D, E, F};
+        for (int round = 0; round < 2; round++) {
+            for (AnnotationMirror q1 : quals) {
+                for (AnnotationMirror q2 : quals) {
+                    AnnotationMirror lub = graphLub(q1, q2);
+                    assert AnnotationUtils.areSame(qh.leastUpperBound(q1, q2), lub)
+                            : "LUB of " + q1 + " and " + q2 + " is not " + lub + "!";
+                    AnnotationMirror glb = graphGlb(q1, q2);
+                    assert AnnotationUtils.areSame(qh.greatestLowerBound(q1, q2), glb)
+                            : "GLB of " + q1 + " and " + q2 + " is not " + glb + "!";
+                    assert qh.isSubtype(q1, q2) == supertypes(q1).contains(q2)
+                            : "Subtyping of " + q1 + " and " + q2 + " is wrong!";
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the direct supertypes of {@code q} in the graph drawn above.
+     *
+     * @param q one of A to F
+     * @return the direct supertypes of {@code q}
+     */
+    private List<AnnotationMirror> directSupertypes(AnnotationMirror q) {
+        if (q == B || q == C) {
+            return Arrays.asList(A);
+        } else if (q == D) {
+            return Arrays.asList(B, C);
+        } else if (q == E) {
+            return Arrays.asList(C);
+        } else if (q == F) {
+            return Arrays.asList(D, E);
+        }
+        return Arrays.asList();
+    }
+
+    /**
+     * Returns {@code q} and all its supertypes, by walking the graph drawn above.
+     *
+     * @param q one of A to F
+     * @return {@code q} and all its supertypes
+     */
+    private List<AnnotationMirror> supertypes(AnnotationMirror q) {
+        List<AnnotationMirror> result = new ArrayList<>();
+        result.add(q);
+        for (int i = 0; i < result.size(); i++) {
+            for (AnnotationMirror sup : directSupertypes(result.get(i))) {
+                if (!result.contains(sup)) {
+                    result.add(sup);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the least upper bound of two qualifiers, by walking the graph drawn above.
+     *
+     * @param q1 one of A to F
+     * @param q2 one of A to F
+     * @return the least upper bound of {@code q1} and {@code q2}
+     */
+    private AnnotationMirror graphLub(AnnotationMirror q1, AnnotationMirror q2) {
+        List<AnnotationMirror> common = supertypes(q1);
+        common.retainAll(supertypes(q2));
+        for (AnnotationMirror candidate : common) {
+            if (supertypes(candidate).containsAll(common)) {
+                return candidate;
+            }
+        }
+        throw new AssertionError("No LUB of " + q1 + " and " + q2);
+    }
+
+    /**
+     * Returns the greatest lower bound of two qualifiers, by walking the graph drawn above.
+     *
+     * @param q1 one of A to F
+     * @param q2 one of A to F
+     * @return the greatest lower bound of {@code q1} and {@code q2}
+     */
+    private AnnotationMirror graphGlb(AnnotationMirror q1, AnnotationMirror q2) {
+        List<AnnotationMirror> common = new ArrayList<>();
+        for (AnnotationMirror q : new AnnotationMirror[] {A, B, C, D, E, F}) {
+            if (supertypes(q).contains(q1) && supertypes(q).contains(q2)) {
+                common.add(q);
+            }
+        }
+        for (AnnotationMirror candidate : common) {
+            boolean greatest = true;
+            for (AnnotationMirror q : common) {
+                greatest &= supertypes(q).contains(candidate);
+            }
+            if (greatest) {
+                return candidate;
+            }
+        }
+        throw new AssertionError("No GLB of " + q1 + " and " + q2);
     }
 }
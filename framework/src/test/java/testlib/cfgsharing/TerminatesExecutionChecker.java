@@ -0,0 +1,21 @@
+package testlib.cfgsharing;
+
+import java.util.LinkedHashSet;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.common.value.ValueChecker;
+
+/**
+ * Used to test that a control-flow graph is not shared by the checkers of a compound checker that
+ * disagree about which methods terminate execution. This checker's subchecker, which runs first,
+ * considers that {@code Thread.dumpStack()} terminates execution, because of its stub file; this
+ * checker does not.
+ */
+public class TerminatesExecutionChecker extends ValueChecker {
+    @Override
+    protected LinkedHashSet<Class<? extends BaseTypeChecker>> getImmediateSubcheckerClasses() {
+        LinkedHashSet<Class<? extends BaseTypeChecker>> subcheckers =
+                super.getImmediateSubcheckerClasses();
+        subcheckers.add(TerminatesExecutionSubchecker.class);
+        return subcheckers;
+    }
+}
@@ -0,0 +1,11 @@
+package testlib.cfgsharing;
+
+import org.checkerframework.common.value.ValueChecker;
+import org.checkerframework.framework.qual.StubFiles;
+
+/**
+ * The subchecker of {@link TerminatesExecutionChecker}. Its stub file states that {@code
+ * Thread.dumpStack()} terminates execution.
+ */
+@StubFiles("tests/cfg-sharing/terminates.astub")
+public class TerminatesExecutionSubchecker extends ValueChecker {}
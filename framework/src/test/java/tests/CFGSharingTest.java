@@ -0,0 +1,21 @@
+package tests;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+import testlib.cfgsharing.TerminatesExecutionChecker;
+
+/** Tests that the checkers of a compound checker share control-flow graphs only when they can. */
+public class CFGSharingTest extends CheckerFrameworkPerDirectoryTest {
+
+    /** @param testFiles the files containing test code, which will be type-checked */
+    public CFGSharingTest(List<File> testFiles) {
+        super(testFiles, TerminatesExecutionChecker.class, "cfg-sharing", "-Anomsgtext");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"cfg-sharing"};
+    }
+}
@@ -0,0 +1,229 @@
+package tests;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.checkerframework.dataflow.util.CopyOnWriteMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that modifying a {@link CopyOnWriteMap}, directly or through its views, iterators, and
+ * entries, never affects the maps it shares storage with.
+ */
+public class CopyOnWriteMapTest {
+
+    /**
+     * Returns a map from "a", "b", and "c" to 1, 2, and 3.
+     *
+     * @return a new map with three entries
+     */
+    private static CopyOnWriteMap<String, Integer> abc() {
+        CopyOnWriteMap<String, Integer> map = new CopyOnWriteMap<>();
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("c", 3);
+        return map;
+    }
+
+    /**
+     * Asserts that {@code map} maps "a", "b", and "c" to 1, 2, and 3, and has no other entries.
+     *
+     * @param map the map to check
+     */
+    private static void assertAbc(Map<String, Integer> map) {
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("a", 1);
+        expected.put("b", 2);
+        expected.put("c", 3);
+        Assert.assertEquals(expected, map);
+    }
+
+    @Test
+    public void copyHasSameEntries() {
+        CopyOnWriteMap<String, Integer> original = abc();
+        CopyOnWriteMap<String, Integer> copy = CopyOnWriteMap.copyOf(original);
+        assertAbc(copy);
+        Assert.assertTrue(copy.sharesStorageWith(original));
+        Assert.assertEquals(original, copy);
+        Assert.assertEquals(original.hashCode(), copy.hashCode());
+    }
+
+    @Test
+    public void copyOfOtherMap() {
+        Map<String, Integer> original = new HashMap<>(abc());
+        CopyOnWriteMap<String, Integer> copy = CopyOnWriteMap.copyOf(original);
+        copy.put("d", 4);
+        Assert.assertFalse(original.containsKey("d"));
+        Assert.assertFalse(copy.sharesStorageWith(original));
+    }
+
+    @Test
+    public void putOnCopy() {
+        CopyOnWriteMap<String, Integer> original = abc();
+        CopyOnWriteMap<String, Integer> copy = CopyOnWriteMap.copyOf(original);
+        copy.put("a", 10);
+        copy.put("d", 4);
+        assertAbc(original);
+        Assert.assertEquals(Integer.valueOf(10), copy.get("a"));
+        Assert.assertEquals(Integer.valueOf(4), copy.get("d"));
+        Assert.assertFalse(copy.sharesStorageWith(original));
+    }
+
+    @Test
+    public void putOnOriginal() {
+        CopyOnWriteMap<String, Integer> original = abc();
+        CopyOnWriteMap<String, Integer> copy = CopyOnWriteMap.copyOf(original);
+        original.put("a", 10);
+        assertAbc(copy);
+        Assert.assertEquals(Integer.valueOf(10), original.get("a"));
+    }
+
+    @Test
+    public void putAllRemoveAndClearOnCopy() {
+        CopyOnWriteMap<String, Integer> original = abc();
+
+        CopyOnWriteMap<String, Integer> copy1 = CopyOnWriteMap.copyOf(original);
+        Map<String, Integer> more = new HashMap<>();
+        more.put("d", 4);
+        copy1.putAll(more);
+
+        CopyOnWriteMap<String, Integer> copy2 = CopyOnWriteMap.copyOf(original);
+        Assert.assertEquals(Integer.valueOf(2), copy2.remove("b"));
+        Assert.assertNull(copy2.remove("z"));
+
+        CopyOnWriteMap<String, Integer> copy3 = CopyOnWriteMap.copyOf(original);
+        copy3.clear();
+
+        assertAbc(original);
+        Assert.assertEquals(4, copy1.size());
+        Assert.assertEquals(2, copy2.size());
+        Assert.assertTrue(copy3.isEmpty());
+    }
+
+    @Test
+    public void copyOfCopy() {
+        CopyOnWriteMap<String, Integer> original = abc();
+        CopyOnWriteMap<String, Integer> copy1 = CopyOnWriteMap.copyOf(original);
+        CopyOnWriteMap<String, Integer> copy2 = CopyOnWriteMap.copyOf(copy1);
+        copy1.remove("a");
+        copy2.put("b", 20);
+        assertAbc(original);
+        Assert.assertFalse(copy1.containsKey("a"));
+        Assert.assertEquals(Integer.valueOf(2), copy1.get("b"));
+        Assert.assertEquals(Integer.valueOf(20), copy2.get("b"));
+        Assert.assertEquals(Integer.valueOf(1), copy2.get("a"));
+    }
+
+    @Test
+    public void entrySetIteratorRemoveOnCopy() {
+        CopyOnWriteMap<String, Integer> original = abc();
+        CopyOnWriteMap<String, Integer> copy = CopyOnWriteMap.copyOf(original);
+        Iterator<Map.Entry<String, Integer>> it = copy.entrySet().iterator();
+        while (it.hasNext()) {
+            if (!it.next().getKey().equals("b")) {
+                it.remove();
+            }
+        }
+        assertAbc(original);
+        Assert.assertEquals(1, copy.size());
+        Assert.assertEquals(Integer.valueOf(2), copy.get("b"));
+    }
+
+    @Test
+    public void entrySetValueOnCopy() {
+        CopyOnWriteMap<String, Integer> original = abc();
+        CopyOnWriteMap<String, Integer> copy = CopyOnWriteMap.copyOf(original);
+        for (Map.Entry<String, Integer> entry : copy.entrySet()) {
+            entry.setValue(entry.getValue() * 10);
+        }
+        assertAbc(original);
+        Assert.assertEquals(Integer.valueOf(10), copy.get("a"));
+        Assert.assertEquals(Integer.valueOf(20), copy.get("b"));
+        Assert.assertEquals(Integer.valueOf(30), copy.get("c"));
+    }
+
+    @Test
+    public void entrySetClearOnCopy() {
+        CopyOnWriteMap<String, Integer> original = abc();
+        CopyOnWriteMap<String, Integer> copy = CopyOnWriteMap.copyOf(original);
+        copy.entrySet().clear();
+        assertAbc(original);
+        Assert.assertTrue(copy.isEmpty());
+    }
+
+    @Test
+    public void keySetAndValuesRemoveOnCopy() {
+        CopyOnWriteMap<String, Integer> original = abc();
+
+        CopyOnWriteMap<String, Integer> copy1 = CopyOnWriteMap.copyOf(original);
+        Assert.assertTrue(copy1.keySet().remove("a"));
+        copy1.keySet().retainAll(Collections.singleton("b"));
+
+        CopyOnWriteMap<String, Integer> copy2 = CopyOnWriteMap.copyOf(original);
+        Assert.assertTrue(copy2.values().remove(3));
+        copy2.values().removeIf(v -> v == 1);
+
+        CopyOnWriteMap<String, Integer> copy3 = CopyOnWriteMap.copyOf(original);
+        Iterator<String> keys = copy3.keySet().iterator();
+        keys.next();
+        keys.remove();
+
+        assertAbc(original);
+        Assert.assertEquals(Collections.singleton("b"), copy1.keySet());
+        Assert.assertEquals(Collections.singletonMap("b", 2), copy2);
+        Assert.assertEquals(2, copy3.size());
+    }
+
+    @Test
+    public void iteratorOfOriginalAfterCopy() {
+        // The iterator and entries are created before the copy, and used after it.
+        CopyOnWriteMap<String, Integer> original = abc();
+        Iterator<Map.Entry<String, Integer>> it = original.entrySet().iterator();
+        Map.Entry<String, Integer> first = it.next();
+        CopyOnWriteMap<String, Integer> copy = CopyOnWriteMap.copyOf(original);
+
+        first.setValue(100);
+        it.remove();
+        while (it.hasNext()) {
+            Map.Entry<String, Integer> entry = it.next();
+            entry.setValue(-entry.getValue());
+        }
+
+        assertAbc(copy);
+        Assert.assertEquals(2, original.size());
+        Assert.assertFalse(original.containsKey(first.getKey()));
+        for (Integer value : original.values()) {
+            Assert.assertTrue(value < 0);
+        }
+    }
+
+    @Test
+    public void iteratorOfCopyAfterOriginalChanges() {
+        CopyOnWriteMap<String, Integer> original = abc();
+        CopyOnWriteMap<String, Integer> copy = CopyOnWriteMap.copyOf(original);
+        Iterator<Map.Entry<String, Integer>> it = copy.entrySet().iterator();
+        original.put("d", 4);
+        int count = 0;
+        while (it.hasNext()) {
+            it.next();
+            it.remove();
+            count++;
+        }
+        Assert.assertEquals(3, count);
+        Assert.assertTrue(copy.isEmpty());
+        Assert.assertEquals(4, original.size());
+    }
+
+    @Test
+    public void equalsAfterDivergingAndConverging() {
+        CopyOnWriteMap<String, Integer> original = abc();
+        CopyOnWriteMap<String, Integer> copy = CopyOnWriteMap.copyOf(original);
+        copy.put("a", 10);
+        Assert.assertNotEquals(original, copy);
+        copy.put("a", 1);
+        Assert.assertEquals(original, copy);
+        Assert.assertFalse(copy.sharesStorageWith(original));
+    }
+}
@@ -0,0 +1,71 @@
+package tests;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import org.checkerframework.common.value.ValueChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.checkerframework.framework.test.TestConfiguration;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.checkerframework.framework.test.TestUtilities;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.checkerframework.framework.test.TypecheckResult;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runners.Parameterized.Parameters;
+import testlib.compound.CompoundChecker;
+
+/**
+ * Tests that code whose dataflow analysis reaches the limit given by {@code -AflowIterationLimit}
+ * is checked without flow-sensitive type refinement.
+ */
+public class FlowIterationLimitTest extends CheckerFrameworkPerDirectoryTest {
+
+    /** @param testFiles the files containing test code, which will be type-checked */
+    public FlowIterationLimitTest(List<File> testFiles) {
+        super(
+                testFiles,
+                ValueChecker.class,
+                "flow-iteration-limit",
+                "-Anomsgtext",
+                "-AflowIterationLimit=0");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"flow-iteration-limit"};
+    }
+
+    /**
+     * Runs a compound checker, all of whose checkers reach the limit, and checks that it issues
+     * only one warning per method. The expected diagnostics of a test are compared as a set, so
+     * {@link #run} cannot detect duplicate warnings.
+     */
+    @Test
+    public void compoundCheckerWarnsOnce() {
+        TestConfiguration config =
+                TestConfigurationBuilder.buildDefaultConfiguration(
+                        "tests" + File.separator + "flow-iteration-limit-compound",
+                        TestUtilities.findNestedJavaTestFiles("flow-iteration-limit-compound"),
+                        Collections.singleton(CompoundChecker.class.getName()),
+                        Arrays.asList("-Anomsgtext", "-AflowIterationLimit=0"),
+                        TestUtilities.getShouldEmitDebugInfo());
+        TypecheckResult testResult = new TypecheckExecutor().runTest(config);
+        TestUtilities.assertResultsAreValid(testResult);
+
+        List<Long> warnedLines = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : testResult.getActualDiagnostics()) {
+            if (diagnostic.getMessage(null).contains("flow.iteration.limit")) {
+                warnedLines.add(diagnostic.getLineNumber());
+            }
+        }
+        Assert.assertEquals(
+                "Expected one warning for the constructor and one for the method: " + warnedLines,
+                2,
+                warnedLines.size());
+    }
+}
@@ -0,0 +1,179 @@
+package tests;
+
+import com.sun.source.tree.LambdaExpressionTree;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import javax.lang.model.element.Element;
+import org.checkerframework.dataflow.cfg.CFGVisualizeLauncher;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.block.Block;
+import org.checkerframework.dataflow.cfg.node.LessThanNode;
+import org.checkerframework.dataflow.cfg.node.LocalVariableNode;
+import org.checkerframework.dataflow.cfg.node.MethodInvocationNode;
+import org.checkerframework.dataflow.cfg.node.Node;
+import org.checkerframework.dataflow.cfg.node.ReturnNode;
+import org.checkerframework.dataflow.livevariable.LiveLocalVariables;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for {@link LiveLocalVariables}, which implements the {@code -ApruneDeadLocals} option. */
+public class LiveLocalVariablesTest {
+
+    /** The class whose methods are analyzed. */
+    private static final String SOURCE =
+            "class Test {\n"
+                    + "    void mark() {}\n"
+                    + "    int loop(int n) {\n"
+                    + "        int before = n;\n"
+                    + "        int sum = before;\n"
+                    + "        int counter = 0;\n"
+                    + "        while (counter < n) {\n"
+                    + "            mark();\n"
+                    + "            sum += counter;\n"
+                    + "            counter++;\n"
+                    + "        }\n"
+                    + "        int after = 1;\n"
+                    + "        return after;\n"
+                    + "    }\n"
+                    + "    Runnable capture(int n) {\n"
+                    + "        int captured = n;\n"
+                    + "        Runnable r = null;\n"
+                    + "        while (n < 10) {\n"
+                    + "            r = () -> System.out.println(captured);\n"
+                    + "            n++;\n"
+                    + "        }\n"
+                    + "        return r;\n"
+                    + "    }\n"
+                    + "}\n";
+
+    /** Makes {@link CFGVisualizeLauncher#generateMethodCFG} accessible to this test. */
+    private static class CFGBuilder extends CFGVisualizeLauncher {
+        /**
+         * Returns the control-flow graph of a method of {@link #SOURCE}.
+         *
+         * @param method the name of the method
+         * @return the control-flow graph of the method
+         * @throws IOException if the source file cannot be written or deleted
+         */
+        ControlFlowGraph build(String method) throws IOException {
+            Path dir = Files.createTempDirectory("live-locals");
+            Path file = dir.resolve("Test.java");
+            try {
+                Files.write(file, SOURCE.getBytes(StandardCharsets.UTF_8));
+                return generateMethodCFG(file.toString(), "Test", method);
+            } finally {
+                try (Stream<Path> files = Files.walk(dir)) {
+                    files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the only block of a control-flow graph that contains a node that satisfies the given
+     * predicate.
+     *
+     * @param cfg a control-flow graph
+     * @param predicate the predicate
+     * @return the block that contains a node that satisfies {@code predicate}
+     */
+    private static Block blockWith(ControlFlowGraph cfg, Predicate<Node> predicate) {
+        Block result = null;
+        for (Block block : cfg.getAllBlocks()) {
+            for (Node node : block.getNodes()) {
+                if (predicate.test(node)) {
+                    Assert.assertTrue(result == null || result == block);
+                    result = block;
+                }
+            }
+        }
+        Assert.assertNotNull(result);
+        return result;
+    }
+
+    /**
+     * Returns a predicate that is true of the occurrences of the local variable with the given
+     * name.
+     *
+     * @param name the name of a local variable
+     * @return a predicate that is true of the occurrences of {@code name}
+     */
+    private static Predicate<Node> local(String name) {
+        return node ->
+                node instanceof LocalVariableNode
+                        && ((LocalVariableNode) node).getName().equals(name);
+    }
+
+    /**
+     * Returns the names of the local variables that are live at the entry of a block.
+     *
+     * @param live the live local variables of a control-flow graph
+     * @param block a block of the control-flow graph
+     * @return the names of the local variables that are live at the entry of {@code block}
+     */
+    private static Set<String> liveBefore(LiveLocalVariables live, Block block) {
+        Set<String> names = new HashSet<>();
+        for (Element element : live.getLiveVariablesBefore(block)) {
+            names.add(element.getSimpleName().toString());
+        }
+        return names;
+    }
+
+    @Test
+    public void loop() throws IOException {
+        ControlFlowGraph cfg = new CFGBuilder().build("loop");
+        LiveLocalVariables live = new LiveLocalVariables(cfg);
+
+        Set<String> entry = liveBefore(live, cfg.getEntryBlock());
+        Assert.assertTrue(
+                entry.containsAll(Arrays.asList("n", "before", "sum", "counter", "after")));
+
+        Set<String> first = liveBefore(live, blockWith(cfg, local("before")));
+        Assert.assertTrue(
+                first.containsAll(Arrays.asList("n", "before", "sum", "counter", "after")));
+
+        // The variables that are used in the loop are live everywhere in it, because of the back
+        // edge, and so is the variable that is used after it.
+        Set<String> condition = liveBefore(live, blockWith(cfg, n -> n instanceof LessThanNode));
+        Assert.assertTrue(condition.containsAll(Arrays.asList("n", "sum", "counter", "after")));
+        Assert.assertFalse(condition.contains("before"));
+
+        Set<String> body =
+                liveBefore(live, blockWith(cfg, n -> n instanceof MethodInvocationNode));
+        Assert.assertTrue(body.containsAll(Arrays.asList("n", "sum", "counter", "after")));
+        Assert.assertFalse(body.contains("before"));
+
+        Set<String> exit = liveBefore(live, blockWith(cfg, n -> n instanceof ReturnNode));
+        Assert.assertTrue(exit.contains("after"));
+        Assert.assertFalse(exit.contains("before"));
+        Assert.assertFalse(exit.contains("sum"));
+        Assert.assertFalse(exit.contains("counter"));
+    }
+
+    @Test
+    public void lambdaInLoop() throws IOException {
+        ControlFlowGraph cfg = new CFGBuilder().build("capture");
+        LiveLocalVariables live = new LiveLocalVariables(cfg);
+
+        // A variable that is only used in a lambda expression is live where the lambda expression
+        // is created, and everywhere in the loop that contains it.
+        Set<String> lambda =
+                liveBefore(
+                        live, blockWith(cfg, n -> n.getTree() instanceof LambdaExpressionTree));
+        Assert.assertTrue(lambda.contains("captured"));
+
+        Set<String> condition = liveBefore(live, blockWith(cfg, n -> n instanceof LessThanNode));
+        Assert.assertTrue(condition.contains("captured"));
+
+        Set<String> exit = liveBefore(live, blockWith(cfg, n -> n instanceof ReturnNode));
+        Assert.assertFalse(exit.contains("captured"));
+    }
+}
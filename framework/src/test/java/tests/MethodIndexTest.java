@@ -0,0 +1,139 @@
+package tests;
+
+import com.sun.tools.javac.main.JavaCompiler;
+import com.sun.tools.javac.main.Option;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Options;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import org.checkerframework.javacutil.MethodIndex;
+import org.checkerframework.javacutil.TreeUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import testlib.util.Encrypted;
+
+/** Tests for {@link MethodIndex}. */
+public class MethodIndexTest {
+
+    /** The processing environment of the compilation. */
+    private final ProcessingEnvironment env;
+
+    /** The method index of the compilation. */
+    private final MethodIndex index;
+
+    /** The element of {@code java.lang.String}. */
+    private final TypeElement string;
+
+    public MethodIndexTest() {
+        Context context = new Context();
+        Options options = Options.instance(context);
+        options.put(Option.SOURCE, "8");
+        options.put(Option.TARGET, "8");
+
+        env = JavacProcessingEnvironment.instance(context);
+        JavaCompiler javac = JavaCompiler.instance(context);
+        javac.initModules(com.sun.tools.javac.util.List.nil());
+        javac.enterDone();
+
+        index = MethodIndex.instance(env);
+        string = env.getElementUtils().getTypeElement("java.lang.String");
+    }
+
+    /**
+     * Returns the methods named {@code name} that {@code type} declares, in declaration order,
+     * without using the index.
+     *
+     * @param type a type
+     * @param name a method name
+     * @return the methods named {@code name} that {@code type} declares
+     */
+    private static List<ExecutableElement> declared(TypeElement type, String name) {
+        List<ExecutableElement> result = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(name)) {
+                result.add(method);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void oneIndexPerCompilation() {
+        Assert.assertSame(index, MethodIndex.instance(env));
+    }
+
+    @Test
+    public void overloadsInDeclarationOrder() {
+        List<ExecutableElement> valueOf = index.getMethods(string, "valueOf");
+        Assert.assertTrue(valueOf.size() > 1);
+        Assert.assertEquals(declared(string, "valueOf"), valueOf);
+        // A second lookup returns the same methods.
+        Assert.assertEquals(valueOf, index.getMethods(string, new StringBuilder("valueOf")));
+    }
+
+    @Test
+    public void numberOfParameters() {
+        List<ExecutableElement> indexOf = index.getMethods(string, "indexOf", 2);
+        Assert.assertFalse(indexOf.isEmpty());
+        for (ExecutableElement method : indexOf) {
+            Assert.assertEquals(2, method.getParameters().size());
+        }
+        List<ExecutableElement> expected = new ArrayList<>();
+        for (ExecutableElement method : declared(string, "indexOf")) {
+            if (method.getParameters().size() == 2) {
+                expected.add(method);
+            }
+        }
+        Assert.assertEquals(expected, indexOf);
+        Assert.assertTrue(index.getMethods(string, "indexOf", 10).isEmpty());
+
+        // If every method of the name matches, the indexed list is returned without copying it.
+        Assert.assertSame(
+                index.getMethods(string, "isEmpty"), index.getMethods(string, "isEmpty", 0));
+    }
+
+    @Test
+    public void resultsAreUnmodifiable() {
+        List<ExecutableElement> expected = declared(string, "indexOf");
+        List<List<ExecutableElement>> results =
+                Arrays.asList(
+                        index.getMethods(string, "indexOf"),
+                        index.getMethods(string, "indexOf", 2),
+                        index.getMethods(string, "isEmpty", 0),
+                        TreeUtils.getMethods("java.lang.String", "indexOf", 1, env));
+        for (List<ExecutableElement> result : results) {
+            try {
+                result.clear();
+                Assert.fail("A caller modified the result of a lookup");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+        }
+        Assert.assertEquals(expected, index.getMethods(string, "indexOf"));
+        Assert.assertEquals(1, index.getMethods(string, "isEmpty", 0).size());
+    }
+
+    @Test
+    public void missingMethods() {
+        // Inherited methods are not included.
+        Assert.assertTrue(index.getMethods(string, "getClass").isEmpty());
+        Assert.assertTrue(index.getMethods(string, "noSuchMethod").isEmpty());
+        Assert.assertTrue(index.getMethods(string, "noSuchMethod", 0).isEmpty());
+
+        TypeElement encrypted = env.getElementUtils().getTypeElement(Encrypted.class.getName());
+        Assert.assertTrue(index.getMethods(encrypted, "value").isEmpty());
+    }
+
+    @Test
+    public void statistics() {
+        index.getMethods(string, "valueOf");
+        index.getMethods(string, "indexOf");
+        Assert.assertEquals("method index: 2 lookups, 1 types indexed", index.statistics());
+    }
+}
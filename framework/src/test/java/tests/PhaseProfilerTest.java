@@ -0,0 +1,135 @@
+package tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.checkerframework.framework.util.PhaseProfiler;
+import org.checkerframework.framework.util.PhaseProfiler.Phase;
+import org.checkerframework.javacutil.BugInCF;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for {@link PhaseProfiler}, which implements the {@code -Aprofile} command-line option. */
+public class PhaseProfilerTest {
+
+    /**
+     * Returns the summary that {@link PhaseProfiler#report} prints for the given profilers.
+     *
+     * @param profilers map from the name of a checker to its profiler
+     * @param outputDir the directory in which to write the result files, or null
+     * @return the printed summary
+     */
+    private static String report(Map<String, PhaseProfiler> profilers, Path outputDir) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(bytes, true, "UTF-8")) {
+            PhaseProfiler.report(profilers, outputDir == null ? null : outputDir.toString(), out);
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Returns a profiler that has measured a visitor phase with a nested dataflow phase, one class,
+     * and one method.
+     *
+     * @return an enabled profiler with some measurements
+     */
+    private static PhaseProfiler profiled() {
+        PhaseProfiler profiler = PhaseProfiler.create(true);
+        profiler.start(Phase.VISITOR);
+        long start = profiler.startTimer();
+        profiler.start(Phase.DATAFLOW);
+        profiler.stop(Phase.DATAFLOW);
+        profiler.recordMethod("C.m()", start);
+        profiler.recordClass("C", profiler.stop(Phase.VISITOR));
+        return profiler;
+    }
+
+    @Test
+    public void disabledProfilerMeasuresNothing() {
+        PhaseProfiler profiler = PhaseProfiler.create(false);
+        Assert.assertFalse(profiler.isEnabled());
+        Assert.assertEquals(0, profiler.startTimer());
+        profiler.start(Phase.VISITOR);
+        // A disabled profiler does not check that phases are properly nested.
+        Assert.assertEquals(0, profiler.stop(Phase.DATAFLOW));
+
+        Map<String, PhaseProfiler> profilers = new LinkedHashMap<>();
+        profilers.put("Checker", profiler);
+        String summary = report(profilers, null);
+        Assert.assertFalse(summary.contains("visitor"));
+        Assert.assertFalse(summary.contains("Slowest"));
+    }
+
+    @Test
+    public void nestedPhases() {
+        PhaseProfiler profiler = PhaseProfiler.create(true);
+        Assert.assertTrue(profiler.isEnabled());
+        profiler.start(Phase.VISITOR);
+        profiler.start(Phase.DATAFLOW);
+        profiler.start(Phase.CFG_CONSTRUCTION);
+        long inner = profiler.stop(Phase.CFG_CONSTRUCTION);
+        long middle = profiler.stop(Phase.DATAFLOW);
+        long outer = profiler.stop(Phase.VISITOR);
+        // The returned times include nested phases.
+        Assert.assertTrue(inner <= middle);
+        Assert.assertTrue(middle <= outer);
+    }
+
+    @Test(expected = BugInCF.class)
+    public void mismatchedStop() {
+        PhaseProfiler profiler = PhaseProfiler.create(true);
+        profiler.start(Phase.VISITOR);
+        profiler.start(Phase.DATAFLOW);
+        profiler.stop(Phase.VISITOR);
+    }
+
+    @Test
+    public void summary() {
+        Map<String, PhaseProfiler> profilers = new LinkedHashMap<>();
+        profilers.put("org.example.Checker", profiled());
+        String summary = report(profilers, null);
+        Assert.assertTrue(summary.contains("Profile of org.example.Checker"));
+        Assert.assertTrue(summary.contains("visitor"));
+        Assert.assertTrue(summary.contains("dataflow"));
+        Assert.assertFalse(summary.contains("stub parsing"));
+        Assert.assertTrue(summary.contains("Slowest classes"));
+        Assert.assertTrue(summary.contains("Slowest methods"));
+        Assert.assertTrue(summary.contains("C.m()"));
+    }
+
+    @Test
+    public void checkersWithTheSameSimpleName() throws IOException {
+        Path dir = Files.createTempDirectory("profile");
+        try {
+            Map<String, PhaseProfiler> profilers = new LinkedHashMap<>();
+            profilers.put("org.example.a.Checker", profiled());
+            profilers.put("org.example.b.Checker", profiled());
+            String summary = report(profilers, dir);
+            Assert.assertTrue(summary.contains("Profile of org.example.a.Checker"));
+            Assert.assertTrue(summary.contains("Profile of org.example.b.Checker"));
+
+            String json =
+                    new String(
+                            Files.readAllBytes(dir.resolve("profile.json")),
+                            StandardCharsets.UTF_8);
+            Assert.assertTrue(json.contains("\"org.example.a.Checker\": {"));
+            Assert.assertTrue(json.contains("\"org.example.b.Checker\": {"));
+            Assert.assertTrue(json.contains("\"visitor\": {\"calls\": 1,"));
+            Assert.assertTrue(json.contains("\"dataflow\": {\"calls\": 1,"));
+            Assert.assertTrue(Files.isRegularFile(dir.resolve("profile.folded")));
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+            }
+        }
+    }
+}
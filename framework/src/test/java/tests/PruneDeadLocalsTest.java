@@ -0,0 +1,31 @@
+package tests;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.common.value.ValueChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests that the {@code -ApruneDeadLocals} option does not change the diagnostics of the constant
+ * value propagation type system. Runs the tests of {@link ValueTest} with the option.
+ */
+public class PruneDeadLocalsTest extends CheckerFrameworkPerDirectoryTest {
+
+    /** @param testFiles the files containing test code, which will be type-checked */
+    public PruneDeadLocalsTest(List<File> testFiles) {
+        super(
+                testFiles,
+                ValueChecker.class,
+                "value",
+                "-Anomsgtext",
+                "-Astubs=tests/value/minints-stub.astub:tests/value/lowercase.astub",
+                "-A" + ValueChecker.REPORT_EVAL_WARNS,
+                "-ApruneDeadLocals");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"value", "all-systems", "prune-dead-locals"};
+    }
+}
@@ -0,0 +1,113 @@
+package tests.wpirunners;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceDriver;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceScenesStorage;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import testlib.wholeprograminference.WholeProgramInferenceTestChecker;
+
+/**
+ * Runs {@link WholeProgramInferenceDriver} on a program whose inferred annotations take several
+ * iterations to reach a fixpoint, and checks the .jaif files that it writes.
+ *
+ * <p>The driver empties {@link WholeProgramInferenceScenesStorage#JAIF_FILES_PATH}, so this test is
+ * run by its own build rule, after the other whole-program inference tests.
+ */
+@Category(WholeProgramInferenceDriverTest.class)
+public class WholeProgramInferenceDriverTest {
+
+    /**
+     * The program, as pairs of a class name and its source code. The classes are compiled in this
+     * order, so that each inferred annotation is found only after the classes that read it have
+     * been type-checked:
+     *
+     * <ol>
+     *   <li>The return type of {@code WpiSource.source} is inferred in iteration 1.
+     *   <li>The parameter type of {@code WpiGrandParent.take} is inferred from the call in {@code
+     *       WpiCaller} in iteration 2.
+     *   <li>The parameter type of {@code WpiChild.take} is inferred from the method that it
+     *       overrides in iteration 3. {@code WpiChild} refers to {@code WpiGrandParent} only
+     *       through its superclass {@code WpiParent}.
+     * </ol>
+     */
+    private static final String[][] PROGRAM = {
+        {
+            "WpiChild",
+            "class WpiChild extends WpiParent {\n"
+                    + "    @Override\n"
+                    + "    void take(int i) {}\n"
+                    + "}\n"
+        },
+        {
+            "WpiCaller",
+            "class WpiCaller {\n"
+                    + "    void call() {\n"
+                    + "        new WpiGrandParent().take(WpiSource.source());\n"
+                    + "    }\n"
+                    + "}\n"
+        },
+        {
+            "WpiSource",
+            "import testlib.wholeprograminference.qual.Sibling1;\n"
+                    + "class WpiSource {\n"
+                    + "    static int source() {\n"
+                    + "        return sibling1();\n"
+                    + "    }\n"
+                    + "    static @Sibling1 int sibling1() {\n"
+                    + "        return 0;\n"
+                    + "    }\n"
+                    + "}\n"
+        },
+        {"WpiGrandParent", "class WpiGrandParent {\n    void take(int i) {}\n}\n"},
+        {"WpiParent", "class WpiParent extends WpiGrandParent {}\n"},
+    };
+
+    @Test
+    public void overrideOfGrandparentMethod() throws IOException {
+        Path src = Files.createTempDirectory("wpi-driver");
+        try {
+            List<String> args = new ArrayList<>();
+            args.add(WholeProgramInferenceTestChecker.class.getName());
+            args.add(System.getProperty("java.class.path"));
+            for (String[] compilationUnit : PROGRAM) {
+                Path file = src.resolve(compilationUnit[0] + ".java");
+                Files.write(file, compilationUnit[1].getBytes(StandardCharsets.UTF_8));
+                args.add(file.toString());
+            }
+            Assert.assertTrue(
+                    WholeProgramInferenceDriver.runToFixpoint(args.toArray(new String[0])));
+
+            Assert.assertTrue(readJaif("WpiSource").contains("Sibling1"));
+            Assert.assertTrue(readJaif("WpiGrandParent").contains("Sibling1"));
+            Assert.assertTrue(readJaif("WpiChild").contains("Sibling1"));
+        } finally {
+            try (Stream<Path> files = Files.walk(src)) {
+                files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Returns the contents of the .jaif file written for the given class.
+     *
+     * @param className the name of a class of {@link #PROGRAM}
+     * @return the contents of the .jaif file of the class
+     * @throws IOException if the file cannot be read
+     */
+    private static String readJaif(String className) throws IOException {
+        File jaif =
+                new File(WholeProgramInferenceScenesStorage.JAIF_FILES_PATH, className + ".jaif");
+        Assert.assertTrue("No .jaif file for " + className, jaif.exists());
+        return new String(Files.readAllBytes(jaif.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,26 @@
+import org.checkerframework.common.value.qual.IntVal;
+
+// The subchecker considers that Thread.dumpStack() terminates execution, so it refines x to
+// @IntVal(1) after the if statement. The parent checker does not, so it must not reuse the
+// subchecker's control-flow graph.
+public class TerminatesExecutionDisagreement {
+    void test(boolean flag) {
+        int x = 1;
+        if (flag) {
+            x = 2;
+            Thread.dumpStack();
+        }
+        // :: error: (assignment.type.incompatible)
+        @IntVal(1) int y = x;
+    }
+
+    void loop(boolean flag) {
+        int x = 1;
+        while (flag) {
+            x = 2;
+            Thread.dumpStack();
+        }
+        // :: error: (assignment.type.incompatible)
+        @IntVal(1) int y = x;
+    }
+}
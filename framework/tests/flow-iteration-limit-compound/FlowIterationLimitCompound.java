@@ -0,0 +1,15 @@
+// This test is run by a compound checker with -AflowIterationLimit=0. Each of its checkers reaches
+// the limit for every method, but the warning is issued only once per method.
+public class FlowIterationLimitCompound {
+
+    // :: warning: (flow.iteration.limit)
+    FlowIterationLimitCompound() {}
+
+    // :: warning: (flow.iteration.limit)
+    int method(int n) {
+        while (n > 0) {
+            n--;
+        }
+        return n;
+    }
+}
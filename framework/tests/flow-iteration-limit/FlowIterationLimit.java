@@ -0,0 +1,41 @@
+import org.checkerframework.common.value.qual.EnsuresMinLenIf;
+import org.checkerframework.common.value.qual.IntVal;
+
+// This test is run with -AflowIterationLimit=0, so the dataflow analysis of every method,
+// constructor, and initializer stops before it reaches a fixed point.
+public class FlowIterationLimit {
+
+    String s;
+
+    // :: warning: (flow.iteration.limit)
+    {
+        s = "initialized";
+    }
+
+    // :: warning: (flow.iteration.limit)
+    FlowIterationLimit() {
+        int i = 1;
+        // The type of i is not refined by its initializer.
+        // :: error: (assignment.type.incompatible)
+        @IntVal(1) int j = i;
+    }
+
+    // :: warning: (flow.iteration.limit)
+    void method(int n) {
+        int i = 0;
+        while (n > 0) {
+            n--;
+        }
+        // :: error: (assignment.type.incompatible)
+        @IntVal(0) int j = i;
+    }
+
+    @EnsuresMinLenIf(expression = "s", targetValue = 5, result = true)
+    // :: warning: (flow.iteration.limit)
+    boolean setS() {
+        s = "hello";
+        // Nothing is known at the return statement.
+        // :: error: (contracts.conditional.postcondition.not.satisfied)
+        return true;
+    }
+}
@@ -0,0 +1,65 @@
+import org.checkerframework.common.value.qual.IntVal;
+
+// The refined types of local variables must survive -ApruneDeadLocals wherever the variables are
+// used later, including uses in lambda expressions and anonymous classes that capture them.
+public class CapturedLocals {
+
+    interface IntSupplier {
+        int get();
+    }
+
+    void afterLoop(int n) {
+        int x = 1;
+        for (int i = 0; i < n; i++) {
+            n--;
+        }
+        @IntVal(1) int y = x;
+    }
+
+    void inLoop(int n) {
+        int x = 1;
+        int y = 2;
+        while (n > 0) {
+            @IntVal(1) int z = x;
+            n--;
+        }
+        @IntVal(2) int w = y;
+    }
+
+    void lambda(boolean b) {
+        int x = 1;
+        if (b) {
+            b = false;
+        }
+        IntSupplier s =
+                () -> {
+                    @IntVal(1) int y = x;
+                    return y;
+                };
+    }
+
+    void anonymousClass(boolean b) {
+        int x = 1;
+        if (b) {
+            b = false;
+        }
+        IntSupplier s =
+                new IntSupplier() {
+                    @Override
+                    public int get() {
+                        @IntVal(1) int y = x;
+                        return y;
+                    }
+                };
+    }
+
+    void deadAfterBranch(boolean b) {
+        int x = 1;
+        @IntVal(1) int y = x;
+        if (b) {
+            x = 2;
+        }
+        // :: error: (assignment.type.incompatible)
+        @IntVal(1) int z = x;
+    }
+}
@@ -25,7 +25,6 @@ import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.PrimitiveType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
-import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import org.checkerframework.checker.interning.qual.Interned;
@@ -65,6 +64,8 @@ public class AnnotationBuilder {
     private final DeclaredType annotationType;
     /** A mapping from element to AnnotationValue. */
     private final Map<ExecutableElement, AnnotationValue> elementValues;
+    /** The index used to look up the elements of the annotation. */
+    private final MethodIndex methodIndex;
 
     /**
      * Create a new AnnotationBuilder for the given annotation and environment (with no
@@ -88,6 +89,7 @@ public class AnnotationBuilder {
     public AnnotationBuilder(ProcessingEnvironment env, CharSequence name) {
         this.elements = env.getElementUtils();
         this.types = env.getTypeUtils();
+        this.methodIndex = MethodIndex.instance(env);
         this.annotationElt = elements.getTypeElement(name);
         if (annotationElt == null) {
             throw new UserError("Could not find annotation: " + name + ". Is it on the classpath?");
@@ -107,6 +109,7 @@ public class AnnotationBuilder {
     public AnnotationBuilder(ProcessingEnvironment env, AnnotationMirror annotation) {
         this.elements = env.getElementUtils();
         this.types = env.getTypeUtils();
+        this.methodIndex = MethodIndex.instance(env);
 
         this.annotationType = annotation.getAnnotationType();
         this.annotationElt = (TypeElement) annotationType.asElement();
@@ -491,10 +494,9 @@ public class AnnotationBuilder {
     }
 
     public ExecutableElement findElement(CharSequence key) {
-        for (ExecutableElement elt : ElementFilter.methodsIn(annotationElt.getEnclosedElements())) {
-            if (elt.getSimpleName().contentEquals(key)) {
-                return elt;
-            }
+        List<ExecutableElement> elts = methodIndex.getMethods(annotationElt, key);
+        if (!elts.isEmpty()) {
+            return elts.get(0);
         }
         throw new BugInCF("Couldn't find " + key + " element in " + annotationElt);
     }
@@ -47,6 +47,13 @@ public class AnnotationUtils {
         throw new AssertionError("Class AnnotationUtils cannot be instantiated.");
     }
 
+    /**
+     * The ordering used by {@link #createAnnotationSet} and {@link #createAnnotationMap}. It is a
+     * single object so that {@link #getSame} can recognize collections that are ordered by it.
+     */
+    private static final Comparator<AnnotationMirror> ANNOTATION_ORDERING =
+            AnnotationUtils::compareAnnotationMirrors;
+
     // **********************************************************************
     // Helper methods to handle annotations.  mainly workaround
     // AnnotationMirror.equals undesired property
@@ -214,6 +221,17 @@ public class AnnotationUtils {
      */
     public static @Nullable AnnotationMirror getSame(
             Collection<? extends AnnotationMirror> c, AnnotationMirror anno) {
+        if (c instanceof NavigableSet<?>
+                && ((NavigableSet<?>) c).comparator() == ANNOTATION_ORDERING) {
+            // The set is ordered by compareAnnotationMirrors, which returns 0 exactly when areSame
+            // returns true, so a binary search suffices.
+            @SuppressWarnings("unchecked")
+            NavigableSet<AnnotationMirror> sorted = (NavigableSet<AnnotationMirror>) c;
+            AnnotationMirror candidate = sorted.ceiling(anno);
+            return candidate != null && compareAnnotationMirrors(candidate, anno) == 0
+                    ? candidate
+                    : null;
+        }
         for (AnnotationMirror an : c) {
             if (AnnotationUtils.areSame(an, anno)) {
                 return an;
@@ -325,6 +343,9 @@ public class AnnotationUtils {
      * @return an ordering over AnnotationMirrors based on their name and values
      */
     public static int compareAnnotationMirrors(AnnotationMirror a1, AnnotationMirror a2) {
+        if (a1 == a2) {
+            return 0;
+        }
         if (!AnnotationUtils.areSameByName(a1, a2)) {
             return annotationName(a1).compareTo(annotationName(a2));
         }
@@ -332,10 +353,16 @@ public class AnnotationUtils {
         // The annotations have the same name, but different values, so compare values.
         Map<? extends ExecutableElement, ? extends AnnotationValue> vals1 = a1.getElementValues();
         Map<? extends ExecutableElement, ? extends AnnotationValue> vals2 = a2.getElementValues();
-        Set<ExecutableElement> sortedElements =
-                new TreeSet<>(Comparator.comparing(ElementUtils::getSimpleName));
-        sortedElements.addAll(
-                ElementFilter.methodsIn(a1.getAnnotationType().asElement().getEnclosedElements()));
+        if (vals1.isEmpty() && vals2.isEmpty()) {
+            // Every element has its default value in both annotations.
+            return 0;
+        }
+        // methodsIn returns a fresh list, so it can be sorted in place.
+        List<ExecutableElement> sortedElements =
+                ElementFilter.methodsIn(a1.getAnnotationType().asElement().getEnclosedElements());
+        if (sortedElements.size() > 1) {
+            sortedElements.sort(Comparator.comparing(ElementUtils::getSimpleName));
+        }
 
         for (ExecutableElement meth : sortedElements) {
             AnnotationValue aval1 = vals1.get(meth);
@@ -445,7 +472,7 @@ public class AnnotationUtils {
      * @return a new map with {@link AnnotationMirror} as key
      */
     public static <V> Map<AnnotationMirror, V> createAnnotationMap() {
-        return new TreeMap<>(AnnotationUtils::compareAnnotationMirrors);
+        return new TreeMap<>(ANNOTATION_ORDERING);
     }
 
     /**
@@ -457,7 +484,7 @@ public class AnnotationUtils {
      * @return a sorted new set to store {@link AnnotationMirror} as element
      */
     public static NavigableSet<AnnotationMirror> createAnnotationSet() {
-        return new TreeSet<>(AnnotationUtils::compareAnnotationMirrors);
+        return new TreeSet<>(ANNOTATION_ORDERING);
     }
 
     /**
@@ -580,6 +607,10 @@ public class AnnotationUtils {
 
         Map<? extends ExecutableElement, ? extends AnnotationValue> vals1 = am1.getElementValues();
         Map<? extends ExecutableElement, ? extends AnnotationValue> vals2 = am2.getElementValues();
+        if (vals1.isEmpty() && vals2.isEmpty()) {
+            // Every element has its default value in both annotations.
+            return true;
+        }
         for (ExecutableElement meth :
                 ElementFilter.methodsIn(
                         am1.getAnnotationType().asElement().getEnclosedElements())) {
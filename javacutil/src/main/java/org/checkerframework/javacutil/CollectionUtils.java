@@ -1,6 +1,5 @@
 package org.checkerframework.javacutil;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 /** Utility methods related to Java Collections. */
@@ -11,16 +10,9 @@ public class CollectionUtils {
      *
      * @param size size of the cache
      * @return a new cache with the provided size
+     * @see LRUCache
      */
     public static <K, V> Map<K, V> createLRUCache(final int size) {
-        return new LinkedHashMap<K, V>(size, .75F, true) {
-
-            private static final long serialVersionUID = 5261489276168775084L;
-
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<K, V> entry) {
-                return size() > size;
-            }
-        };
+        return new LRUCache<>(size);
     }
 }
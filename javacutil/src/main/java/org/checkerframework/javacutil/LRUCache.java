@@ -0,0 +1,108 @@
+package org.checkerframework.javacutil;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A map that holds at most a given number of entries, evicting the least recently used entry when
+ * it is full. It counts hits, misses, and evictions, so that the cache size can be tuned.
+ *
+ * <p>Only {@link #get} updates the hit and miss counters. A lookup of a key that is mapped to null
+ * counts as a miss.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ * @see CollectionUtils#createLRUCache
+ */
+public class LRUCache<K, V> extends LinkedHashMap<K, V> {
+
+    /** Unique identifier for serialization. */
+    private static final long serialVersionUID = 5261489276168775084L;
+
+    /** The maximum number of entries. */
+    private final int maxSize;
+
+    /** The number of calls to {@link #get} that returned a non-null value. */
+    private long hits = 0;
+
+    /** The number of calls to {@link #get} that returned null. */
+    private long misses = 0;
+
+    /** The number of entries that were evicted because the cache was full. */
+    private long evictions = 0;
+
+    /**
+     * Creates a new, empty cache.
+     *
+     * @param maxSize the maximum number of entries
+     */
+    public LRUCache(int maxSize) {
+        super(maxSize, .75F, true);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public @Nullable V get(@Nullable Object key) {
+        V result = super.get(key);
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> entry) {
+        if (size() > maxSize) {
+            evictions++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of calls to {@link #get} that returned a non-null value.
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of calls to {@link #get} that returned null.
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries that were evicted because the cache was full.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns a one-line summary of the effectiveness of this cache.
+     *
+     * @return a summary of the hits, misses, and evictions of this cache
+     */
+    public String statistics() {
+        long lookups = hits + misses;
+        return String.format(
+                "%d/%d entries, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                size(),
+                maxSize,
+                hits,
+                misses,
+                lookups == 0 ? 0.0 : 100.0 * hits / lookups,
+                evictions);
+    }
+}
@@ -0,0 +1,123 @@
+package org.checkerframework.javacutil;
+
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+
+/**
+ * An index of the methods declared by types, by name. There is one index per compilation, and it
+ * is shared by all checkers that run in it; see {@link #instance}.
+ *
+ * <p>Type factories, visitors, and {@link AnnotationBuilder} look up methods by type and name,
+ * often the same few methods of the same few types. Without the index, each lookup scans all the
+ * members of the type. The methods of a type are indexed the first time one of them is looked up.
+ */
+public final class MethodIndex {
+
+    /** The key under which the index of a compilation is stored in its javac context. */
+    private static final Context.Key<MethodIndex> methodIndexKey = new Context.Key<>();
+
+    /** Map from a type to a map from a method name to the methods of that name that it declares. */
+    private final Map<TypeElement, Map<String, List<ExecutableElement>>> methods = new HashMap<>();
+
+    /** The number of lookups. */
+    private int lookups = 0;
+
+    /** The number of lookups that required indexing the methods of a type. */
+    private int typesIndexed = 0;
+
+    /** Creates an empty index. Use {@link #instance} to obtain the index of a compilation. */
+    private MethodIndex() {}
+
+    /**
+     * Returns the method index of the compilation that {@code env} belongs to, creating it if
+     * necessary.
+     *
+     * @param env the processing environment
+     * @return the method index of the compilation
+     */
+    public static MethodIndex instance(ProcessingEnvironment env) {
+        Context context = ((JavacProcessingEnvironment) env).getContext();
+        MethodIndex index = context.get(methodIndexKey);
+        if (index == null) {
+            index = new MethodIndex();
+            context.put(methodIndexKey, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the methods named {@code name} that {@code type} declares, in declaration order.
+     * Inherited methods are not included.
+     *
+     * @param type a type
+     * @param name a method name
+     * @return an unmodifiable list of the methods named {@code name} that {@code type} declares
+     */
+    public List<ExecutableElement> getMethods(TypeElement type, CharSequence name) {
+        lookups++;
+        Map<String, List<ExecutableElement>> byName = methods.get(type);
+        if (byName == null) {
+            typesIndexed++;
+            byName = new HashMap<>();
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                byName.computeIfAbsent(method.getSimpleName().toString(), k -> new ArrayList<>(1))
+                        .add(method);
+            }
+            byName.replaceAll((k, v) -> Collections.unmodifiableList(v));
+            methods.put(type, byName);
+        }
+        List<ExecutableElement> result = byName.get(name.toString());
+        return result == null ? Collections.emptyList() : result;
+    }
+
+    /**
+     * Returns the methods named {@code name} that {@code type} declares and that have {@code
+     * params} formal parameters, in declaration order.
+     *
+     * @param type a type
+     * @param name a method name
+     * @param params the number of formal parameters
+     * @return an unmodifiable list of the methods named {@code name} with {@code params} formal
+     *     parameters that {@code type} declares
+     */
+    public List<ExecutableElement> getMethods(TypeElement type, CharSequence name, int params) {
+        List<ExecutableElement> methods = getMethods(type, name);
+        int matches = 0;
+        for (ExecutableElement method : methods) {
+            if (method.getParameters().size() == params) {
+                matches++;
+            }
+        }
+        if (matches == methods.size()) {
+            // The common case, including a method that is not overloaded: no need to copy.
+            return methods;
+        } else if (matches == 0) {
+            return Collections.emptyList();
+        }
+        List<ExecutableElement> result = new ArrayList<>(matches);
+        for (ExecutableElement method : methods) {
+            if (method.getParameters().size() == params) {
+                result.add(method);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns a one-line summary of how effective the index has been, for debugging output.
+     *
+     * @return a summary of the lookups so far
+     */
+    public String statistics() {
+        return String.format("method index: %d lookups, %d types indexed", lookups, typesIndexed);
+    }
+}
@@ -931,22 +931,16 @@ public final class TreeUtils {
 
     /**
      * Returns all ExecutableElements for method declarations of methodName, in class typeName, with
-     * params formal parameters.
+     * params formal parameters. The result is unmodifiable, because it may be shared with the
+     * {@link MethodIndex} of the compilation; copy it to modify it.
      */
     public static List<ExecutableElement> getMethods(
             String typeName, String methodName, int params, ProcessingEnvironment env) {
-        List<ExecutableElement> methods = new ArrayList<>(1);
         TypeElement typeElt = env.getElementUtils().getTypeElement(typeName);
         if (typeElt == null) {
             throw new UserError("Configuration problem! Could not load type: " + typeName);
         }
-        for (ExecutableElement exec : ElementFilter.methodsIn(typeElt.getEnclosedElements())) {
-            if (exec.getSimpleName().contentEquals(methodName)
-                    && exec.getParameters().size() == params) {
-                methods.add(exec);
-            }
-        }
-        return methods;
+        return MethodIndex.instance(env).getMethods(typeElt, methodName, params);
     }
 
     /**
@@ -956,9 +950,8 @@ public final class TreeUtils {
     public static ExecutableElement getMethod(
             String typeName, String methodName, ProcessingEnvironment env, String... paramTypes) {
         TypeElement typeElt = env.getElementUtils().getTypeElement(typeName);
-        for (ExecutableElement exec : ElementFilter.methodsIn(typeElt.getEnclosedElements())) {
-            if (exec.getSimpleName().contentEquals(methodName)
-                    && exec.getParameters().size() == paramTypes.length) {
+        for (ExecutableElement exec : MethodIndex.instance(env).getMethods(typeElt, methodName)) {
+            if (exec.getParameters().size() == paramTypes.length) {
                 boolean typesMatch = true;
                 List<? extends VariableElement> params = exec.getParameters();
                 for (int i = 0; i < paramTypes.length; i++) {